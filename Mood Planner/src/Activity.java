@@ -25,8 +25,16 @@ public abstract class Activity {
     /** Completion status of the activity */
     private boolean isCompleted;
 
+    /**
+     * Set once the activity has been published by an {@link ActivityManager}.
+     * Snapshots share published activities, so their ID and completion status
+     * can no longer be changed.
+     */
+    private volatile boolean published;
+
     /**
      * Constructs a new Activity with the specified details.
+     * The title and description are shared through {@link StringPool}.
      *
      * @param id           The unique identifier for the activity
      * @param title        The title of the activity (cannot be empty or null)
@@ -43,13 +51,22 @@ public abstract class Activity {
         }
 
         this.id = id;
-        this.title = title.trim();
-        this.description = description != null ? description : "";
+        this.title = StringPool.intern(title.trim());
+        this.description = description != null ? StringPool.intern(description) : "";
         this.effortLevel = effortLevel;
         this.dueDate = dueDate;
         this.isCompleted = false;
     }
 
+    /**
+     * Constructs an Activity whose data is kept elsewhere.
+     * No validation or string pooling is done, and the fields declared here are
+     * left empty, so subclasses using this constructor must override every getter.
+     * Used by views and lazily parsed activities, which are created in bulk.
+     */
+    protected Activity() {
+    }
+
     /**
      * Returns the unique identifier of the activity.
      *
@@ -60,8 +77,12 @@ public abstract class Activity {
      * Sets the unique identifier of the activity.
      *
      * @param id the new ID to set
+     * @throws IllegalStateException if the activity has been published by a manager
      */
-    public void setId(int id) { this.id = id; }
+    public void setId(int id) {
+        checkNotPublished();
+        this.id = id;
+    }
 
     /**
      * Returns the title of the activity.
@@ -87,6 +108,48 @@ public abstract class Activity {
      * @return the due date
      */
     public LocalDate getDueDate() { return dueDate; }
+    /**
+     * Returns whether the activity has been completed.
+     *
+     * @return true if the activity is completed
+     */
+    public boolean isCompleted() { return isCompleted; }
+    /**
+     * Sets the completion status of the activity.
+     * Use {@link ActivityManager#completeActivity(int)} for activities in a manager.
+     *
+     * @param completed true to mark the activity as completed
+     * @throws IllegalStateException if the activity has been published by a manager
+     */
+    public void setCompleted(boolean completed) {
+        checkNotPublished();
+        this.isCompleted = completed;
+    }
+
+    /**
+     * Marks the activity as published by a manager, making its ID and completion
+     * status read-only.
+     */
+    final void markPublished() { published = true; }
+
+    /**
+     * Returns whether the activity has been published by a manager.
+     *
+     * @return true if the activity can no longer be changed
+     */
+    final boolean isPublished() { return published; }
+
+    /**
+     * Throws if the activity has been published by a manager. Subclasses that
+     * override a setter call this first.
+     *
+     * @throws IllegalStateException if the activity has been published
+     */
+    protected final void checkNotPublished() {
+        if (published) {
+            throw new IllegalStateException("Activity " + getId() + " is shared by a manager and cannot be changed");
+        }
+    }
 
     /**
      * Returns a label representing the type of activity.
@@ -0,0 +1,250 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Append-only archive of completed activities stored on disk.
+ * Completed activities are moved here by {@link ActivityManager} so that the
+ * in-memory list only holds open work.
+ *
+ * <p>Each archived activity is one CSV line:
+ * id,title,description,effortLevel,type,dueDate,courseName, with text fields
+ * escaped by {@link CsvField}. The file is only read the first time archived activities are requested,
+ * after which they are kept in memory.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see ActivityManager#completeActivity(int)
+ */
+public class ActivityArchive {
+
+    /** Path of the archive file. */
+    private final Path path;
+
+    /** Archived activities, or null if the file has not been read yet. */
+    private ArrayList<Activity> loaded;
+
+    /** Lines that could not be parsed the last time the file was read. */
+    private int skippedLines;
+
+    /** IDs of every archived activity, or null if they have not been scanned yet. */
+    private HashSet<Integer> ids;
+
+    /** Highest archived ID, valid once {@link #ids} has been built. */
+    private int maxId;
+
+    /**
+     * Creates an archive backed by the given file. The file is created on the first append.
+     *
+     * @param filename the name of the archive file (cannot be null)
+     * @throws IllegalArgumentException if filename is null
+     */
+    public ActivityArchive(String filename) {
+        if (filename == null) {
+            throw new IllegalArgumentException("Filename cannot be null");
+        }
+        this.path = Path.of(filename);
+    }
+
+    /**
+     * Appends a completed activity to the end of the archive file.
+     *
+     * @param activity the activity to archive (cannot be null)
+     * @return true if the activity was written, false if an I/O error occurred
+     * @throws IllegalArgumentException if activity is null
+     */
+    public synchronized boolean append(Activity activity) {
+        if (activity == null) {
+            throw new IllegalArgumentException("Activity cannot be null");
+        }
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            writer.println(toLine(activity));
+            if (writer.checkError()) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        if (loaded != null) {
+            loaded.add(activity);
+        }
+        if (ids != null) {
+            ids.add(activity.getId());
+            maxId = Math.max(maxId, activity.getId());
+        }
+        return true;
+    }
+
+    /**
+     * Returns the highest ID of any archived activity, so new activities never reuse
+     * an ID from the history. Only the ID field of each line is read.
+     *
+     * @return the highest archived ID, or 0 if the archive is empty
+     */
+    public synchronized int getMaxId() {
+        scanIds();
+        return maxId;
+    }
+
+    /**
+     * Returns whether an activity with the given ID has been archived, so a completed
+     * activity is not reopened when it is loaded or merged again.
+     * Only the ID field of each line is read.
+     *
+     * @param id the activity ID
+     * @return true if an archived activity has this ID
+     */
+    public synchronized boolean containsId(int id) {
+        scanIds();
+        return ids.contains(id);
+    }
+
+    /**
+     * Collects the archived IDs on first use, from memory if the archive has been
+     * read and otherwise from the leading field of each line.
+     */
+    private void scanIds() {
+        if (ids != null) {
+            return;
+        }
+        ids = new HashSet<>();
+        if (loaded != null) {
+            for (Activity a : loaded) {
+                ids.add(a.getId());
+            }
+        } else if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comma = line.indexOf(',');
+                    try {
+                        ids.add(Integer.parseInt(comma < 0 ? line : line.substring(0, comma)));
+                    } catch (NumberFormatException e) {
+                        // Malformed lines are skipped, as in getAll()
+                    }
+                }
+            } catch (IOException e) {
+                // Use whatever could be read
+            }
+        }
+        for (int id : ids) {
+            maxId = Math.max(maxId, id);
+        }
+    }
+
+    /**
+     * Returns all archived activities, reading the archive file on the first call.
+     * Malformed lines are skipped, counted in {@link #getSkippedLineCount()} and
+     * reported on standard error.
+     *
+     * @return a new list containing all archived activities, oldest first
+     */
+    public synchronized ArrayList<Activity> getAll() {
+        if (loaded == null) {
+            loaded = readAll();
+        }
+        return new ArrayList<>(loaded);
+    }
+
+    /**
+     * Returns how many archive lines could not be parsed when the file was read.
+     *
+     * @return the number of skipped lines, or 0 if the file has not been read yet
+     */
+    public synchronized int getSkippedLineCount() {
+        return skippedLines;
+    }
+
+    /**
+     * Reads every activity from the archive file.
+     *
+     * @return the archived activities, or an empty list if the file does not exist
+     */
+    private ArrayList<Activity> readAll() {
+        ArrayList<Activity> result = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return result;
+        }
+
+        int skipped = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Activity activity = fromLine(line);
+                if (activity != null) {
+                    result.add(activity);
+                } else {
+                    skipped++;
+                    System.err.println("Warning: skipped malformed line " + lineNumber + " of " + path);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: could not read all of " + path + ": " + e.getMessage());
+        }
+        skippedLines = skipped;
+        return result;
+    }
+
+    /**
+     * Formats an activity as an archive line.
+     *
+     * @param a the activity to format
+     * @return the CSV line for the activity
+     */
+    private static String toLine(Activity a) {
+        String course = ActivityManager.courseNameOf(a);
+        return a.getId() + "," +
+                CsvField.escape(a.getTitle()) + "," +
+                CsvField.escape(a.getDescription()) + "," +
+                a.getEffortLevel() + "," +
+                a.getTypeLabel() + "," +
+                a.getDueDate() + "," +
+                CsvField.escape(course);
+    }
+
+    /**
+     * Parses an archive line back into a completed activity.
+     *
+     * @param line the CSV line to parse
+     * @return the activity, or null if the line is malformed
+     */
+    private static Activity fromLine(String line) {
+        String[] p = line.split(",", -1);
+        if (p.length != 7) {
+            return null;
+        }
+
+        try {
+            int id = Integer.parseInt(p[0]);
+            LevelMood level = LevelMood.valueOf(p[3]);
+            LocalDate due = LocalDate.parse(p[5]);
+
+            Activity activity;
+            String title = CsvField.unescape(p[1]);
+            String description = CsvField.unescape(p[2]);
+            if (p[4].equalsIgnoreCase("School")) {
+                activity = new SchoolActivity(id, title, description, level, due, CsvField.unescape(p[6]));
+            } else {
+                activity = new PersonalActivity(id, title, description, level, due);
+            }
+            activity.setCompleted(true);
+            return activity;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Describes one change to the activities held by an {@link ActivityManager}.
+ * Events are delivered to subscribers of {@link ActivityManager#getChangeStream()}.
+ *
+ * <p>This class is immutable, although the activity it refers to is not.</p>
+ *
+ * @see ChangeStream
+ */
+public class ActivityEvent {
+
+    /**
+     * The kinds of change that can happen to an activity.
+     */
+    public enum Kind {
+        /** The activity was added, either directly or by loading a file. */
+        ADDED,
+        /** The activity replaced an open activity with the same ID during a merge. */
+        UPDATED,
+        /** The activity was completed and moved to the archive. */
+        COMPLETED,
+        /** A recurring definition was removed; the activity is its next occurrence. */
+        REMOVED
+    }
+
+    /** What happened. */
+    private final Kind kind;
+
+    /** The activity that changed. */
+    private final Activity activity;
+
+    /** The manager version that contains the change. */
+    private final long version;
+
+    /**
+     * Creates a new event.
+     *
+     * @param kind     what happened (cannot be null)
+     * @param activity the activity that changed (cannot be null)
+     * @param version  the manager version that contains the change
+     * @throws IllegalArgumentException if kind or activity is null
+     */
+    public ActivityEvent(Kind kind, Activity activity, long version) {
+        if (kind == null || activity == null) {
+            throw new IllegalArgumentException("Kind and activity cannot be null");
+        }
+        this.kind = kind;
+        this.activity = activity;
+        this.version = version;
+    }
+
+    /**
+     * Returns what happened to the activity.
+     *
+     * @return the kind of change
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the activity that changed.
+     *
+     * @return the activity
+     */
+    public Activity getActivity() {
+        return activity;
+    }
+
+    /**
+     * Returns the manager version that contains this change.
+     * It can be passed to {@link ActivityManager#snapshotAt(long)}.
+     *
+     * @return the version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a string representation of this event.
+     *
+     * @return a string containing the kind, activity ID and version
+     */
+    @Override
+    public String toString() {
+        return "ActivityEvent{kind=" + kind + ", id=" + activity.getId() + ", version=" + version + "}";
+    }
+}
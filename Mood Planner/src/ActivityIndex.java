@@ -0,0 +1,189 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over the open activities of an {@link ActivityManager}, used
+ * to plan {@link ActivityQuery} lookups.
+ *
+ * <p>For each indexed field (effort level, type label, course name and due date)
+ * the index keeps the set of activity IDs with each value. To run a query, the
+ * planner estimates how many IDs each indexable condition selects, starts from the
+ * smallest set, and checks the other indexed conditions by set membership before
+ * fetching the activity and testing the rest of the query. The work is therefore
+ * proportional to the most selective condition, not to the number of activities.</p>
+ *
+ * <p>Updates are made by the manager while it holds its write lock; lookups can
+ * run concurrently without locking.</p>
+ *
+ * @see ActivityManager#query(ActivityQuery)
+ */
+public class ActivityIndex {
+
+    /** IDs by effort level. */
+    private final EnumMap<LevelMood, Set<Integer>> byEffort = new EnumMap<>(LevelMood.class);
+
+    /** IDs by lower-case type label. */
+    private final ConcurrentHashMap<String, Set<Integer>> byType = new ConcurrentHashMap<>();
+
+    /** IDs by course name; personal activities are not listed. */
+    private final ConcurrentHashMap<String, Set<Integer>> byCourse = new ConcurrentHashMap<>();
+
+    /** IDs by due date, in date order. */
+    private final ConcurrentSkipListMap<LocalDate, Set<Integer>> byDue = new ConcurrentSkipListMap<>();
+
+    /**
+     * Creates an empty index.
+     */
+    ActivityIndex() {
+        for (LevelMood level : LevelMood.values()) {
+            byEffort.put(level, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Adds an activity to every index.
+     *
+     * @param a the activity
+     */
+    void add(Activity a) {
+        int id = a.getId();
+        byEffort.get(a.getEffortLevel()).add(id);
+        byType.computeIfAbsent(a.getTypeLabel().toLowerCase(), k -> ConcurrentHashMap.newKeySet()).add(id);
+        String course = ActivityManager.courseNameOf(a);
+        if (!course.isEmpty()) {
+            byCourse.computeIfAbsent(course, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        byDue.computeIfAbsent(a.getDueDate(), k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    /**
+     * Removes an activity from every index.
+     *
+     * @param a the activity
+     */
+    void remove(Activity a) {
+        int id = a.getId();
+        byEffort.get(a.getEffortLevel()).remove(id);
+        removeFrom(byType, a.getTypeLabel().toLowerCase(), id);
+        removeFrom(byCourse, ActivityManager.courseNameOf(a), id);
+        removeFrom(byDue, a.getDueDate(), id);
+    }
+
+    /**
+     * Finds the IDs of activities that may match a query.
+     *
+     * <p>Each indexed condition is costed by the number of IDs it selects. The
+     * cheapest one drives the lookup; effort, type and course sets are intersected
+     * by membership. Due-date ranges that do not drive the lookup are left to the
+     * caller's final {@link ActivityQuery#matches} check, so a wide range is never
+     * copied just to be probed.</p>
+     *
+     * @param query the query to plan
+     * @return candidate IDs that satisfy the indexed conditions of the query,
+     *         or null if the query has no indexable condition and needs a full scan
+     */
+    Collection<Integer> candidates(ActivityQuery query) {
+        ArrayList<Set<Integer>> sets = new ArrayList<>();
+        ActivityQuery cheapest = null;
+        int cheapestSize = Integer.MAX_VALUE;
+        for (ActivityQuery c : query.conjuncts()) {
+            int size;
+            if (c.getKind() == ActivityQuery.Kind.DUE) {
+                size = 0;
+                for (Set<Integer> day : dueRange(c.getFrom(), c.getTo()).values()) {
+                    size += day.size();
+                }
+            } else {
+                Set<Integer> ids = lookup(c);
+                if (ids == null) {
+                    continue;
+                }
+                sets.add(ids);
+                size = ids.size();
+            }
+            if (size < cheapestSize) {
+                cheapest = c;
+                cheapestSize = size;
+            }
+        }
+        if (cheapest == null) {
+            return null;
+        }
+
+        Collection<Integer> driver;
+        if (cheapest.getKind() == ActivityQuery.Kind.DUE) {
+            ArrayList<Integer> ids = new ArrayList<>(cheapestSize);
+            for (Set<Integer> day : dueRange(cheapest.getFrom(), cheapest.getTo()).values()) {
+                ids.addAll(day);
+            }
+            driver = ids;
+        } else {
+            driver = lookup(cheapest);
+        }
+
+        ArrayList<Integer> result = new ArrayList<>();
+        outer:
+        for (Integer id : driver) {
+            for (Set<Integer> s : sets) {
+                if (s != driver && !s.contains(id)) {
+                    continue outer;
+                }
+            }
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the IDs selected by an effort, type or course condition.
+     *
+     * @param c the condition
+     * @return the matching IDs, or null if the condition is not indexed this way
+     */
+    private Set<Integer> lookup(ActivityQuery c) {
+        return switch (c.getKind()) {
+            case EFFORT -> byEffort.get(c.getEffort());
+            case TYPE -> byType.getOrDefault(c.getText().toLowerCase(), Set.of());
+            case COURSE -> byCourse.getOrDefault(c.getText(), Set.of());
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the due-date buckets in [from, to].
+     *
+     * @param from first day
+     * @param to   last day
+     * @return the buckets in the range, empty if the range is reversed
+     */
+    private Map<LocalDate, Set<Integer>> dueRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return Map.of();
+        }
+        return byDue.subMap(from, true, to, true);
+    }
+
+    /**
+     * Removes an ID from one value's set, dropping the set when it becomes empty.
+     *
+     * @param map the index
+     * @param key the value
+     * @param id  the ID to remove
+     * @param <K> the value type
+     */
+    private static <K> void removeFrom(Map<K, Set<Integer>> map, K key, int id) {
+        Set<Integer> ids = map.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                map.remove(key, ids);
+            }
+        }
+    }
+}
@@ -1,48 +1,646 @@
-import java.io.File;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages a collection of activities and provides operations to manipulate them.
  * This includes adding, retrieving, suggesting, and persisting activities.
+ *
+ * <p>The manager uses multi-version concurrency control. Every write (adding,
+ * completing or loading activities) publishes a new version number atomically,
+ * and readers work from a {@link Snapshot} of one version. Readers never block
+ * writers and always see a consistent set of activities, so long reports and
+ * exports can run while new activities keep arriving. Writers are serialized
+ * with a lock.</p>
  */
 public class ActivityManager {
 
-    /** List to store all activities */
-    private ArrayList<Activity> activities = new ArrayList<>();
+    /**
+     * One activity together with the versions in which it was added and removed.
+     */
+    private static final class Entry {
+
+        /** The activity, with its ID assigned before the entry is published. */
+        final Activity activity;
+
+        /** The version in which the activity was added. */
+        final long addedIn;
+
+        /** The version in which the activity was removed, or Long.MAX_VALUE if still present. */
+        volatile long removedIn = Long.MAX_VALUE;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param activity the activity
+         * @param addedIn  the version that adds it
+         */
+        Entry(Activity activity, long addedIn) {
+            this.activity = activity;
+            this.addedIn = addedIn;
+        }
+
+        /**
+         * Returns whether the activity is part of the given version.
+         *
+         * @param version the version to check
+         * @return true if the activity was present in that version
+         */
+        boolean isVisibleIn(long version) {
+            return addedIn <= version && removedIn > version;
+        }
+    }
+
+    /**
+     * The published state of the manager. Entries at positions below {@code count}
+     * are never modified after publication, except for their removal version.
+     *
+     * @param entries         the entry array, possibly with unused space at the end
+     * @param count           the number of entries in use
+     * @param removed         how many of those entries have been removed
+     * @param version         the current version number
+     * @param oldestRetained  the oldest version that can still be read with snapshotAt
+     */
+    private record Head(Entry[] entries, int count, int removed, long version, long oldestRetained) {
+    }
+
+    /**
+     * The contents of an activities file.
+     *
+     * @param activities   the one-off activities, in file order
+     * @param recurring    the recurring definitions, in file order
+     * @param skippedLines the number of lines that could not be parsed
+     */
+    private record LoadedFile(List<Activity> activities, List<RecurringActivity> recurring, int skippedLines) {
+    }
+
+    /**
+     * A consistent, read-only view of the activities at one version.
+     * A snapshot keeps the data it needs alive, so it stays valid for as long
+     * as it is referenced, regardless of later writes.
+     */
+    public static final class Snapshot implements Iterable<Activity> {
+
+        /** The state the snapshot was taken from. */
+        private final Head head;
+
+        /** The version this snapshot shows. */
+        private final long version;
+
+        /**
+         * Creates a snapshot of the given state at the given version.
+         *
+         * @param head    the published state
+         * @param version the version to show
+         */
+        private Snapshot(Head head, long version) {
+            this.head = head;
+            this.version = version;
+        }
+
+        /**
+         * Returns the version number this snapshot shows.
+         *
+         * @return the version number
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the activities in this snapshot, in the order they were added.
+         *
+         * @return a new ArrayList containing the activities
+         */
+        public ArrayList<Activity> getActivities() {
+            ArrayList<Activity> result = new ArrayList<>();
+            for (Activity a : this) {
+                result.add(a);
+            }
+            return result;
+        }
+
+        /**
+         * Copies the activities in this snapshot into a compact, read-only
+         * {@link ActivityStore}, for holding a very large backlog in memory
+         * without one object per activity.
+         *
+         * @return a read-only store with one row per activity, in the order they were added
+         */
+        public ActivityStore toStore() {
+            ActivityStore store = new ActivityStore(head.count());
+            for (Activity a : this) {
+                store.add(a);
+            }
+            store.makeReadOnly();
+            return store;
+        }
+
+        /**
+         * Returns an iterator over the activities in this snapshot.
+         *
+         * @return an iterator that does not support removal
+         */
+        @Override
+        public Iterator<Activity> iterator() {
+            return new Iterator<>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < head.count() && !head.entries()[from].isVisibleIn(version)) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < head.count();
+                }
+
+                @Override
+                public Activity next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Activity a = head.entries()[next].activity;
+                    next = advance(next + 1);
+                    return a;
+                }
+            };
+        }
+    }
+
+    /** The currently published state */
+    private volatile Head head = new Head(new Entry[16], 0, 0, 0, 0);
 
-    /** Counter for generating unique activity IDs */
+    /** Serializes writers; readers never take it */
+    private final Object writeLock = new Object();
+
+    /** Counter for generating unique activity IDs (guarded by writeLock) */
     private int nextId = 1;
 
+    /** Whether nextId has been moved past the archived IDs yet (guarded by writeLock) */
+    private boolean archiveIdsSeen;
+
+    /** On-disk archive that completed activities are moved to */
+    private final ActivityArchive archive;
+
+    /** Unreadable lines skipped by the most recent load or merge */
+    private volatile int skippedLines;
+
+    /** Open activities by ID; written under writeLock, read without locking */
+    private final ConcurrentHashMap<Integer, Entry> byId = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented before and after every change to the open activities, so it is odd
+     * while the indexes are being changed (written under writeLock). A reader that
+     * sees the same even value before and after using the indexes saw one version.
+     */
+    private volatile long indexStamp;
+
+    /**
+     * Open activities by content hash, or null until the first merge needs it
+     * (guarded by writeLock). Building it reads every field, so it is not kept
+     * for managers that never merge, which keeps lazily loaded activities unparsed.
+     */
+    private HashMap<Long, Entry> byContent;
+
+    /**
+     * Archived activities by content hash, or null until the first merge needs it
+     * (guarded by writeLock). Kept up to date as activities are completed, so a
+     * completed activity is not merged back in under a new ID.
+     */
+    private HashMap<Long, Activity> archivedContent;
+
+    /**
+     * Field indexes for {@link #query(ActivityQuery)}, or null until the first query
+     * (written under writeLock). Like the content index, it is built on demand so
+     * lazily loaded activities stay unparsed until something filters on them.
+     */
+    private volatile ActivityIndex fieldIndex;
+
+    /** Recurring activity definitions, expanded on demand; written under writeLock, read without locking */
+    private final CopyOnWriteArrayList<RecurringActivity> recurring = new CopyOnWriteArrayList<>();
+
+    /** Notifies subscribers of added, updated and completed activities */
+    private final ChangeStream<ActivityEvent> changes = new ChangeStream<>("activity-changes");
+
+    /**
+     * Creates a manager that archives completed activities to "completed_activities.txt".
+     */
+    public ActivityManager() {
+        this(new ActivityArchive("completed_activities.txt"));
+    }
+
+    /**
+     * Creates a manager that archives completed activities to the given archive.
+     *
+     * @param archive the archive for completed activities (cannot be null)
+     * @throws IllegalArgumentException if archive is null
+     */
+    public ActivityManager(ActivityArchive archive) {
+        if (archive == null) {
+            throw new IllegalArgumentException("Archive cannot be null");
+        }
+        this.archive = archive;
+    }
+
     /**
      * Adds a new activity to the manager.
      * Automatically assigns the next available ID to the activity.
+     * Once added, the activity is shared with snapshots and can no longer be changed.
      *
-     * @param activity the activity to add (cannot be null)
-     * @throws IllegalArgumentException if the activity is null
+     * {@link ActivityStore} views are rejected, because their store could still change them;
+     * add a copy instead.
+     *
+     * @param activity the activity to add (cannot be null, a store view, or already added to a manager)
+     * @throws IllegalArgumentException if the activity is null, a store view, or already published
      */
     public void addActivity(Activity activity) {
         if (activity == null) {
             throw new IllegalArgumentException("Activity cannot be null");
         }
-        activity.setId(nextId++);
-        activities.add(activity);
+        if (activity instanceof ActivityStore.View) {
+            throw new IllegalArgumentException("Activity " + activity.getId() + " is a store view; add a copy");
+        }
+        if (activity.isPublished()) {
+            throw new IllegalArgumentException("Activity " + activity.getId() + " has already been added");
+        }
+        synchronized (writeLock) {
+            activity.setId(takeId());
+            publishAdded(List.of(activity));
+        }
+    }
+
+    /**
+     * Adds a recurring activity definition and assigns it the next available ID.
+     * Its occurrences are not stored; they are created when a date window is queried.
+     *
+     * @param activity the recurring activity to add (cannot be null)
+     * @throws IllegalArgumentException if the activity is null
+     */
+    public void addRecurringActivity(RecurringActivity activity) {
+        if (activity == null) {
+            throw new IllegalArgumentException("Activity cannot be null");
+        }
+        synchronized (writeLock) {
+            activity.setId(takeId());
+            recurring.add(activity);
+            publishSeries(ActivityEvent.Kind.ADDED, activity);
+        }
+    }
+
+    /**
+     * Removes a recurring activity definition, ending all of its future occurrences.
+     *
+     * @param activityId the ID of the definition
+     * @return true if a definition was removed
+     */
+    public boolean removeRecurringActivity(int activityId) {
+        synchronized (writeLock) {
+            RecurringActivity series = getRecurringActivity(activityId);
+            if (series == null || !recurring.remove(series)) {
+                return false;
+            }
+            publishSeries(ActivityEvent.Kind.REMOVED, series);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the recurring activity definition with the given ID.
+     *
+     * @param activityId the ID to look for
+     * @return the definition, or null if there is none
+     */
+    public RecurringActivity getRecurringActivity(int activityId) {
+        for (RecurringActivity r : recurring) {
+            if (r.getId() == activityId) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all recurring activity definitions.
+     *
+     * @return a new list containing the definitions
+     */
+    public ArrayList<RecurringActivity> getRecurringActivities() {
+        return new ArrayList<>(recurring);
+    }
+
+    /**
+     * Returns the open activities and recurring occurrences due in [from, to].
+     *
+     * @param from first day of the window (inclusive, cannot be null)
+     * @param to   last day of the window (inclusive, cannot be null)
+     * @return a list of one-off activities followed by occurrences
+     * @throws IllegalArgumentException if from or to is null
+     */
+    public ArrayList<Activity> getActivitiesDueBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Window bounds cannot be null");
+        }
+        ArrayList<Activity> result = new ArrayList<>();
+        for (Activity a : snapshot()) {
+            if (!a.getDueDate().isBefore(from) && !a.getDueDate().isAfter(to)) {
+                result.add(a);
+            }
+        }
+        for (RecurringActivity r : recurring) {
+            result.addAll(r.occurrencesBetween(from, to));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the activities that match a query, ordered by ID and then due date.
+     * The open activities all come from one snapshot, so the result never mixes
+     * versions.
+     *
+     * <p>The effort, type, course and due-date conditions at the top level of the
+     * query are answered from field indexes, starting with whichever selects the
+     * fewest activities; the remaining conditions are checked only on those
+     * candidates. Queries without such a condition, and queries that race with a
+     * writer, scan every activity in the snapshot instead.</p>
+     *
+     * <p>Occurrences of recurring activities are tested too: those in the window of
+     * the query's top-level due-date conditions (up to one year ahead), or due in the
+     * next seven days if it has none. Completed activities are only searched, in the archive, when the
+     * query contains an {@link ActivityQuery#completed(boolean)} condition.</p>
+     *
+     * @param query the query to run (cannot be null)
+     * @return a new list of matching activities
+     * @throws IllegalArgumentException if query is null
+     */
+    public ArrayList<Activity> query(ActivityQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        ActivityIndex index = fieldIndex;
+        if (index == null) {
+            synchronized (writeLock) {
+                if (fieldIndex == null) {
+                    ActivityIndex built = new ActivityIndex();
+                    for (Entry e : byId.values()) {
+                        built.add(e.activity);
+                    }
+                    fieldIndex = built;
+                }
+                index = fieldIndex;
+            }
+        }
+
+        ArrayList<Activity> result = new ArrayList<>();
+        long stamp = indexStamp;
+        Snapshot snapshot = snapshot();
+        Collection<Integer> candidates = (stamp & 1) == 0 ? index.candidates(query) : null;
+        if (candidates != null) {
+            for (Integer id : candidates) {
+                Entry e = byId.get(id);
+                if (e != null && e.isVisibleIn(snapshot.getVersion()) && query.matches(e.activity)) {
+                    result.add(e.activity);
+                }
+            }
+            if (indexStamp != stamp) {
+                // A writer changed the indexes meanwhile; fall back to the snapshot
+                result.clear();
+                candidates = null;
+            }
+        }
+        if (candidates == null) {
+            for (Activity a : snapshot) {
+                if (query.matches(a)) {
+                    result.add(a);
+                }
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate from = today;
+        LocalDate to = today.plusDays(6);
+        boolean windowed = false;
+        for (ActivityQuery c : query.conjuncts()) {
+            if (c.getKind() == ActivityQuery.Kind.DUE) {
+                from = windowed && from.isAfter(c.getFrom()) ? from : c.getFrom();
+                to = windowed && to.isBefore(c.getTo()) ? to : c.getTo();
+                windowed = true;
+            }
+        }
+        if (to.isAfter(today.plusYears(1))) {
+            // Series can repeat forever, so bound how many occurrences are created
+            to = today.plusYears(1);
+        }
+        for (RecurringActivity r : recurring) {
+            for (Activity occurrence : r.occurrencesBetween(from, to)) {
+                if (query.matches(occurrence)) {
+                    result.add(occurrence);
+                }
+            }
+        }
+
+        if (query.testsCompletion()) {
+            for (Activity a : archive.getAll()) {
+                if (query.matches(a)) {
+                    result.add(a);
+                }
+            }
+        }
+        result.sort(Comparator.comparingInt(Activity::getId).thenComparing(Activity::getDueDate));
+        return result;
+    }
+
+    /**
+     * Returns the stream of activity changes. Subscribers receive an event for
+     * every added (or loaded), updated and completed activity, in version order.
+     *
+     * <p>Recurring definitions are not versioned, so their events carry the current
+     * version instead of a new one. Adding, loading, merging or removing a definition
+     * sends an ADDED, UPDATED or REMOVED event for its next occurrence due today or
+     * later, if it has one. Completing an occurrence sends COMPLETED for it followed
+     * by ADDED for the next one. Every occurrence has the ID of its definition.</p>
+     *
+     * @return the change stream
+     */
+    public ChangeStream<ActivityEvent> getChangeStream() {
+        return changes;
+    }
+
+    /**
+     * Returns the current version number. It increases by one with every write.
+     *
+     * @return the current version
+     */
+    public long getVersion() {
+        return head.version();
+    }
+
+    /**
+     * Returns a snapshot of the current version.
+     *
+     * @return a consistent view of the activities right now
+     */
+    public Snapshot snapshot() {
+        Head h = head;
+        return new Snapshot(h, h.version());
+    }
+
+    /**
+     * Returns a snapshot of an earlier version.
+     * Versions older than the last internal cleanup are no longer available;
+     * to keep an old version readable, hold on to a {@link #snapshot()} instead.
+     *
+     * @param version the version to read
+     * @return a consistent view of the activities at that version
+     * @throws IllegalArgumentException if the version is in the future or no longer retained
+     */
+    public Snapshot snapshotAt(long version) {
+        Head h = head;
+        if (version > h.version()) {
+            throw new IllegalArgumentException("Version " + version + " does not exist yet");
+        }
+        if (version < h.oldestRetained()) {
+            throw new IllegalArgumentException("Version " + version + " is no longer retained");
+        }
+        return new Snapshot(h, version);
     }
 
     /**
-     * Returns a list of all activities in the manager.
+     * Returns a list of all open (not completed) activities in the manager.
      *
-     * @return a new ArrayList containing all activities
+     * @return a new ArrayList containing all open activities
      */
     public ArrayList<Activity> getAllActivities() {
-        return new ArrayList<>(activities);
+        return snapshot().getActivities();
+    }
+
+    /**
+     * Marks an activity as completed and moves it from the open list to the archive.
+     * The open activity itself is not changed, so snapshots taken earlier still see it
+     * as open; a completed copy is archived and sent to change subscribers.
+     *
+     * <p>If the ID belongs to a recurring activity, its next open occurrence due
+     * today or later is completed and archived instead, and the series moves on to
+     * the following occurrence. Recurring definitions are not part of the versioned
+     * activity list, so no new version is created (see {@link #getChangeStream()}).</p>
+     *
+     * @param activityId the ID of the activity or recurring activity to complete
+     * @return true if the activity was completed, false if it was not found, has no
+     *         occurrences left, or could not be written to the archive
+     */
+    public boolean completeActivity(int activityId) {
+        synchronized (writeLock) {
+            Entry e = byId.get(activityId);
+            if (e == null) {
+                return completeNextOccurrence(activityId);
+            }
+            Activity done = copyOf(e.activity);
+            done.setCompleted(true);
+            if (!archive.append(done)) {
+                return false;
+            }
+            if (archivedContent != null) {
+                archivedContent.put(contentHash(done), done);
+            }
+            Head h = head;
+            indexStamp++;
+            e.removedIn = h.version() + 1;
+            unindex(e);
+            publish(new Head(h.entries(), h.count(), h.removed() + 1,
+                    h.version() + 1, h.oldestRetained()));
+            indexStamp++;
+            if (changes.hasSubscribers()) {
+                changes.publish(new ActivityEvent(ActivityEvent.Kind.COMPLETED,
+                        done, h.version() + 1));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Completes the next open occurrence of a recurring activity, due today or later,
+     * by archiving a completed copy of it. Must be called while holding writeLock.
+     *
+     * @param activityId the ID of the recurring definition
+     * @return true if an occurrence was completed, false if there is no such
+     *         definition, it has no occurrences left, or the archive could not be written
+     */
+    private boolean completeNextOccurrence(int activityId) {
+        RecurringActivity series = getRecurringActivity(activityId);
+        Activity occurrence = series != null ? series.nextOccurrence(LocalDate.now()) : null;
+        if (occurrence == null) {
+            return false;
+        }
+        Activity done = copyOf(occurrence);
+        done.setCompleted(true);
+        if (!archive.append(done)) {
+            return false;
+        }
+        if (archivedContent != null) {
+            archivedContent.put(contentHash(done), done);
+        }
+        series.completeThrough(occurrence.getDueDate());
+        if (changes.hasSubscribers()) {
+            changes.publish(new ActivityEvent(ActivityEvent.Kind.COMPLETED, done, head.version()));
+        }
+        publishSeries(ActivityEvent.Kind.ADDED, series);
+        return true;
+    }
+
+    /**
+     * Sends a change event for the next occurrence of a recurring definition, due
+     * today or later, under the current version. Nothing is sent if the series has
+     * no occurrences left. Must be called while holding writeLock.
+     *
+     * @param kind   the kind of change
+     * @param series the recurring definition that changed
+     */
+    private void publishSeries(ActivityEvent.Kind kind, RecurringActivity series) {
+        if (!changes.hasSubscribers()) {
+            return;
+        }
+        Activity next = series.nextOccurrence(LocalDate.now());
+        if (next != null) {
+            changes.publish(new ActivityEvent(kind, next, head.version()));
+        }
+    }
+
+    /**
+     * Returns all completed activities from the archive.
+     * The archive file is read from disk the first time this is called.
+     *
+     * @return a new ArrayList containing all completed activities
+     */
+    public ArrayList<Activity> getCompletedActivities() {
+        return archive.getAll();
     }
 
     /**
      * Suggests activities based on the user's current mood.
      * Uses the recommended effort level defined in the MoodType enum.
+     * Occurrences of recurring activities due in the next seven days are included.
      *
      * @param mood the user's current mood
      * @return a list of activities matching the suggested effort level
@@ -52,126 +650,811 @@ public class ActivityManager {
         if (mood == null) {
             throw new IllegalArgumentException("Mood cannot be null");
         }
+        return activitiesWithEffort(mood.getRecommendedEffortLevel());
+    }
+
+    /**
+     * Suggests activities based on the user's current mood, ranked by how likely the
+     * user is to complete each one in that mood according to their learned model
+     * ({@link MoodEffortModel#score(MoodType, LevelMood)}). Every open activity and
+     * every occurrence of a recurring activity due in the next seven days is
+     * returned, most likely first; activities with equal scores keep the order of
+     * {@link #suggestActivitiesByMood(MoodType)}.
+     *
+     * @param mood  the user's current mood
+     * @param model the user's learned mood-to-effort model (cannot be null)
+     * @return all candidate activities, best match first
+     * @throws IllegalArgumentException if mood or model is null
+     */
+    public ArrayList<Activity> suggestActivitiesByMood(MoodType mood, MoodEffortModel model) {
+        if (mood == null) {
+            throw new IllegalArgumentException("Mood cannot be null");
+        }
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        double[] scores = new double[LevelMood.values().length];
+        for (LevelMood level : LevelMood.values()) {
+            scores[level.ordinal()] = model.score(mood, level);
+        }
 
-        LevelMood target = mood.getRecommendedEffortLevel();
+        ArrayList<Activity> result = activitiesWithEffort(null);
+        // Stable sort, so equal scores keep snapshot order
+        result.sort(Comparator.comparingDouble(
+                (Activity a) -> scores[a.getEffortLevel().ordinal()]).reversed());
+        return result;
+    }
 
+    /**
+     * Returns the activity with the given ID.
+     *
+     * @param activityId the ID to look for
+     * @return the open activity with that ID, or null if there is none
+     */
+    public Activity getActivity(int activityId) {
+        Entry e = byId.get(activityId);
+        return e != null && e.removedIn == Long.MAX_VALUE ? e.activity : null;
+    }
+
+    /**
+     * Returns all open activities with the given effort level, followed by matching
+     * recurring occurrences due in the next seven days.
+     *
+     * @param target the effort level to match, or null to match every level
+     * @return a list of matching activities
+     */
+    private ArrayList<Activity> activitiesWithEffort(LevelMood target) {
         ArrayList<Activity> result = new ArrayList<>();
 
-        for (Activity a : activities) {
-            if (a.getEffortLevel() == target) {
+        for (Activity a : snapshot()) {
+            if (target == null || a.getEffortLevel() == target) {
                 result.add(a);
             }
         }
 
+        LocalDate today = LocalDate.now();
+        for (RecurringActivity r : recurring) {
+            if (target == null || r.getEffortLevel() == target) {
+                result.addAll(r.occurrencesBetween(today, today.plusDays(6)));
+            }
+        }
+
         return result;
     }
 
+    /**
+     * Returns the next free activity ID. The first call reads the highest archived
+     * ID, so completed activities' IDs are never handed out again after a restart.
+     * Must be called while holding writeLock.
+     *
+     * @return a new activity ID
+     */
+    private int takeId() {
+        if (!archiveIdsSeen) {
+            nextId = Math.max(nextId, archive.getMaxId() + 1);
+            archiveIdsSeen = true;
+        }
+        return nextId++;
+    }
+
+    /**
+     * Appends activities as one new version. Must be called while holding writeLock.
+     *
+     * @param added the activities to add, with their IDs already assigned
+     */
+    private void publishAdded(List<Activity> added) {
+        commit(added, List.of(), List.of());
+    }
+
+    /**
+     * Publishes one new version that adds activities, replaces existing ones with
+     * updated copies, and keeps the ID and content indexes in step.
+     * Must be called while holding writeLock.
+     *
+     * @param added    new activities, with their IDs already assigned
+     * @param updated  replacement activities
+     * @param replaced the entries the replacements supersede
+     */
+    private void commit(List<Activity> added, List<Activity> updated, List<Entry> replaced) {
+        Head h = head;
+        long version = h.version() + 1;
+        int newCount = h.count() + added.size() + updated.size();
+        Entry[] entries = h.entries();
+        if (newCount > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(newCount, entries.length * 2));
+        }
+
+        indexStamp++;
+        for (Entry old : replaced) {
+            old.removedIn = version;
+            unindex(old);
+        }
+        int count = h.count();
+        for (Activity a : added) {
+            a.markPublished();
+            index(entries[count++] = new Entry(a, version));
+        }
+        for (Activity a : updated) {
+            a.markPublished();
+            index(entries[count++] = new Entry(a, version));
+        }
+        publish(new Head(entries, count, h.removed() + replaced.size(), version, h.oldestRetained()));
+        indexStamp++;
+
+        if (changes.hasSubscribers()) {
+            for (Activity a : added) {
+                changes.publish(new ActivityEvent(ActivityEvent.Kind.ADDED, a, version));
+            }
+            for (Activity a : updated) {
+                changes.publish(new ActivityEvent(ActivityEvent.Kind.UPDATED, a, version));
+            }
+        }
+    }
+
+    /**
+     * Adds an open entry to the ID, content and field indexes. Must be called while holding writeLock.
+     *
+     * @param e the entry to index
+     */
+    private void index(Entry e) {
+        Entry previous = byId.put(e.activity.getId(), e);
+        if (fieldIndex != null) {
+            if (previous != null) {
+                fieldIndex.remove(previous.activity);
+            }
+            fieldIndex.add(e.activity);
+        }
+        if (byContent != null) {
+            byContent.put(contentHash(e.activity), e);
+        }
+    }
+
+    /**
+     * Removes an entry from the ID, content and field indexes. Must be called while holding writeLock.
+     *
+     * @param e the entry to remove
+     */
+    private void unindex(Entry e) {
+        if (byId.remove(e.activity.getId(), e) && fieldIndex != null) {
+            fieldIndex.remove(e.activity);
+        }
+        if (byContent != null) {
+            byContent.remove(contentHash(e.activity), e);
+        }
+    }
+
+    /**
+     * Hashes every field of an activity except its ID.
+     *
+     * @param a the activity
+     * @return a 64-bit content hash
+     */
+    private static long contentHash(Activity a) {
+        long h = 1125899906842597L;
+        h = 31 * h + a.getTitle().hashCode();
+        h = 31 * h + a.getDescription().hashCode();
+        h = 31 * h + a.getEffortLevel().ordinal();
+        h = 31 * h + a.getTypeLabel().hashCode();
+        h = 31 * h + a.getDueDate().hashCode();
+        h = 31 * h + courseNameOf(a).hashCode();
+        return h;
+    }
+
+    /**
+     * Returns whether two activities have the same content, ignoring their IDs.
+     *
+     * @param a the first activity
+     * @param b the second activity
+     * @return true if every other field is equal
+     */
+    private static boolean sameContent(Activity a, Activity b) {
+        return a.getTitle().equals(b.getTitle())
+                && a.getDescription().equals(b.getDescription())
+                && a.getEffortLevel() == b.getEffortLevel()
+                && a.getTypeLabel().equals(b.getTypeLabel())
+                && a.getDueDate().equals(b.getDueDate())
+                && courseNameOf(a).equals(courseNameOf(b));
+    }
+
+    /**
+     * Publishes a new state, first dropping removed entries if they make up more
+     * than half of the array. Dropping them starts a new array, so snapshots that
+     * were already taken are unaffected. Must be called while holding writeLock.
+     *
+     * @param next the state to publish
+     */
+    private void publish(Head next) {
+        if (next.removed() > 16 && next.removed() * 2 > next.count()) {
+            Entry[] live = new Entry[Math.max(16, (next.count() - next.removed()) * 2)];
+            int count = 0;
+            for (int i = 0; i < next.count(); i++) {
+                Entry e = next.entries()[i];
+                if (e.removedIn == Long.MAX_VALUE) {
+                    live[count++] = e;
+                }
+            }
+            next = new Head(live, count, 0, next.version(), next.version());
+        }
+        head = next;
+    }
+
     /**
      * Saves all activities to a text file in CSV format.
      * Each line represents one activity with fields separated by commas.
-     * Format: id,title,description,effortLevel,type
+     * Format: id,title,description,effortLevel,type,dueDate,courseName
+     * (courseName is empty for personal activities)
      *
      * @param filename the name of the file to save to
      * @return true if the save succeeded, false otherwise
      */
     public boolean saveActivitiesToFile(String filename) {
-        try (PrintWriter writer = new PrintWriter(filename)) {
+        return saveActivitiesToFile(filename, ProgressListener.NONE);
+    }
 
-            for (Activity a : activities) {
-                writer.println(a.getId() + "," +
-                        a.getTitle() + "," +
-                        a.getDescription() + "," +
-                        a.getEffortLevel() + "," +
-                        a.getTypeLabel());
-            }
+    /**
+     * Saves all activities and recurring definitions to a text file, reporting progress
+     * as each one is written. Recurring definitions follow the activities, one line each
+     * (see {@link RecurringActivity#toLine()}).
+     * The data is written to a temporary file first and moved into place when complete,
+     * so an interrupted save never leaves a half-written file behind.
+     * If the calling thread is interrupted the save stops and returns false.
+     *
+     * @param filename the name of the file to save to
+     * @param progress listener notified with (activities written, total activities)
+     * @return true if the save succeeded, false if it failed or was interrupted
+     */
+    public boolean saveActivitiesToFile(String filename, ProgressListener progress) {
+        return saveActivitiesToFile(filename, progress, false);
+    }
+
+    /**
+     * Saves all activities, optionally compressing the file.
+     * A compressed file holds the same CSV lines in independently compressed
+     * blocks (see {@link BlockCompression}); loading detects it automatically.
+     *
+     * @param filename the name of the file to save to
+     * @param progress listener notified with (activities written, total activities)
+     * @param compress true to write a block-compressed file
+     * @return true if the save succeeded, false if it failed or was interrupted
+     */
+    public boolean saveActivitiesToFile(String filename, ProgressListener progress, boolean compress) {
+        ArrayList<Activity> snapshot = getAllActivities();
+        ArrayList<RecurringActivity> series = getRecurringActivities();
+        int total = snapshot.size() + series.size();
+        Path target = Path.of(filename);
+        Path temp = Path.of(filename + ".tmp");
 
+        try {
+            OutputStream out = Files.newOutputStream(temp);
+            if (compress) {
+                out = BlockCompression.compressingStream(out);
+            }
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(
+                    new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
+                int written = 0;
+                for (Activity a : snapshot) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("Save cancelled");
+                    }
+                    writer.println(toLine(a));
+                    progress.onProgress(++written, total);
+                }
+                for (RecurringActivity r : series) {
+                    writer.println(r.toLine());
+                    progress.onProgress(++written, total);
+                }
+                if (writer.checkError()) {
+                    throw new IOException("Error writing " + temp);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
             return true;
         } catch (Exception e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nothing more we can do
+            }
             return false;
         }
     }
 
     /**
      * Loads activities from a text file in CSV format.
-     * Expected format per line: id,title,description,effortLevel,type
-     * For school activities, the course name is not preserved in this implementation.
+     * Expected format per line: id,title,description,effortLevel,type,dueDate,courseName
+     * Files written before due dates and course names were saved only have the first
+     * five fields; those activities get today's date and the course "Unknown".
+     * Lines that cannot be parsed are skipped, reported on standard error and
+     * counted in {@link #getSkippedLineCount()}.
+     * Activities whose ID is already open or archived are skipped, so loading the
+     * same file twice does not duplicate them; use
+     * {@link #mergeActivitiesFromFile(String)} to update existing activities.
      *
      * @param filename the name of the file to load from
      * @return true if the load succeeded, false otherwise
      */
     public boolean loadActivitiesFromFile(String filename) {
-        try (Scanner sc = new Scanner(new File(filename))) {
+        return loadActivitiesFromFile(filename, ProgressListener.NONE);
+    }
+
+    /**
+     * Loads activities from a text file, reporting progress in bytes read.
+     * Activities are only added once the whole file has been parsed, so an
+     * interrupted load leaves the manager unchanged.
+     * If the calling thread is interrupted the load stops and returns false.
+     *
+     * <p>Block-compressed files are detected from their header; their blocks are
+     * inflated and parsed in parallel, and progress is reported in blocks.</p>
+     *
+     * @param filename the name of the file to load from
+     * @param progress listener notified with (bytes read, file size)
+     * @return true if the load succeeded, false if it failed or was interrupted
+     */
+    public boolean loadActivitiesFromFile(String filename, ProgressListener progress) {
+        try {
+            LoadedFile loaded = readActivities(Path.of(filename), progress);
+            skippedLines = loaded.skippedLines();
+            addLoaded(loaded);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
 
-            while (sc.hasNextLine()) {
-                String[] p = sc.nextLine().split(",");
+    /**
+     * Merges activities from a file instead of appending them.
+     * Each activity in the file is matched against the open activities:
+     * <ul>
+     *   <li>same ID and same content: skipped</li>
+     *   <li>same ID, different content: the existing activity is replaced (updated)</li>
+     *   <li>ID of an archived (completed) activity: skipped, so completed work is not reopened</li>
+     *   <li>new ID, but the same content as an open or archived activity: skipped as a duplicate</li>
+     *   <li>otherwise: added</li>
+     * </ul>
+     * Matching uses the ID index and content hash indexes, so the work is
+     * proportional to the size of the file, not the number of existing activities.
+     * The content indexes are built on the first merge. All changes are published as
+     * one version.
+     *
+     * @param filename the name of the file to merge (plain or block-compressed)
+     * @return the added, updated and skipped counts, or null if the file could not be read
+     */
+    public MergeResult mergeActivitiesFromFile(String filename) {
+        LoadedFile incoming;
+        try {
+            incoming = readActivities(Path.of(filename), ProgressListener.NONE);
+        } catch (Exception e) {
+            return null;
+        }
+        skippedLines = incoming.skippedLines();
 
-                if (p.length < 5) {
-                    // Skip malformed lines
-                    continue;
+        synchronized (writeLock) {
+            if (byContent == null) {
+                byContent = new HashMap<>();
+                for (Entry e : byId.values()) {
+                    byContent.put(contentHash(e.activity), e);
                 }
+            }
+            if (archivedContent == null) {
+                archivedContent = new HashMap<>();
+                for (Activity a : archive.getAll()) {
+                    archivedContent.put(contentHash(a), a);
+                }
+            }
+
+            ArrayList<Activity> added = new ArrayList<>();
+            ArrayList<Activity> updated = new ArrayList<>();
+            ArrayList<Entry> replaced = new ArrayList<>();
+            HashSet<Integer> seenIds = new HashSet<>();
+            HashMap<Long, Activity> pendingByContent = new HashMap<>();
+            int addedSeries = 0;
+            int updatedSeries = 0;
+            int skipped = 0;
 
-                int id = Integer.parseInt(p[0]);
-                String title = p[1];
-                String desc = p[2];
-                LevelMood level = LevelMood.valueOf(p[3]);
-                String type = p[4];
+            for (RecurringActivity r : incoming.recurring()) {
+                RecurringActivity existing = getRecurringActivity(r.getId());
+                if (!seenIds.add(r.getId()) || byId.containsKey(r.getId())) {
+                    skipped++;
+                } else if (existing != null) {
+                    if (existing.getCompletedThrough() != null) {
+                        // Never reopen occurrences completed here since the file was written
+                        r.completeThrough(existing.getCompletedThrough());
+                    }
+                    if (existing.toLine().equals(r.toLine())) {
+                        skipped++;
+                    } else {
+                        recurring.replaceAll(s -> s == existing ? r : s);
+                        if (r.nextOccurrence(LocalDate.now()) != null) {
+                            publishSeries(ActivityEvent.Kind.UPDATED, r);
+                        } else {
+                            // The new schedule has ended, so drop the old one's upcoming occurrence
+                            publishSeries(ActivityEvent.Kind.REMOVED, existing);
+                        }
+                        updatedSeries++;
+                    }
+                } else {
+                    recurring.add(r);
+                    publishSeries(ActivityEvent.Kind.ADDED, r);
+                    addedSeries++;
+                    if (r.getId() >= nextId) {
+                        nextId = r.getId() + 1;
+                    }
+                }
+            }
 
-                Activity activity;
+            for (Activity a : incoming.activities()) {
+                long hash = contentHash(a);
+                Entry existing = byId.get(a.getId());
 
-                if (type.equalsIgnoreCase("School")) {
-                    activity = new SchoolActivity(id, title, desc, level, LocalDate.now(), "Unknown");
+                if (!seenIds.add(a.getId())) {
+                    // Repeated ID within the file: the first occurrence wins
+                    skipped++;
+                } else if (existing != null) {
+                    if (sameContent(existing.activity, a)) {
+                        skipped++;
+                    } else {
+                        replaced.add(existing);
+                        updated.add(a);
+                        pendingByContent.put(hash, a);
+                    }
+                } else if (getRecurringActivity(a.getId()) != null || archive.containsId(a.getId())
+                        || isDuplicate(a, hash, pendingByContent)) {
+                    skipped++;
                 } else {
-                    activity = new PersonalActivity(id, title, desc, level, LocalDate.now());
+                    added.add(a);
+                    pendingByContent.put(hash, a);
+                    if (a.getId() >= nextId) {
+                        nextId = a.getId() + 1;
+                    }
                 }
+            }
+
+            commit(added, updated, replaced);
+            return new MergeResult(added.size() + addedSeries, updated.size() + updatedSeries, skipped);
+        }
+    }
+
+    /**
+     * Returns whether an activity duplicates the content of an open or archived activity,
+     * or of one already accepted earlier in the same merge. Must be called while holding writeLock.
+     *
+     * @param a       the incoming activity
+     * @param hash    its content hash
+     * @param pending activities accepted so far in this merge, by content hash
+     * @return true if the content already exists
+     */
+    private boolean isDuplicate(Activity a, long hash, HashMap<Long, Activity> pending) {
+        Entry existing = byContent.get(hash);
+        if (existing != null && sameContent(existing.activity, a)) {
+            return true;
+        }
+        Activity archived = archivedContent.get(hash);
+        if (archived != null && sameContent(archived, a)) {
+            return true;
+        }
+        Activity earlier = pending.get(hash);
+        return earlier != null && sameContent(earlier, a);
+    }
+
+    /**
+     * Returns how many unreadable lines the most recent load or merge skipped.
+     * Each one is also reported on standard error when it is skipped.
+     *
+     * @return the number of skipped lines, or 0 if nothing has been loaded yet
+     */
+    public int getSkippedLineCount() {
+        return skippedLines;
+    }
+
+    /**
+     * Reads and parses every activity and recurring definition in a plain or
+     * block-compressed file. Lines that cannot be parsed are skipped and
+     * reported on standard error rather than failing the whole file.
+     *
+     * @param path     the file to read
+     * @param progress listener notified with (bytes read, file size), or (blocks, total
+     *                 blocks) for compressed files
+     * @return the parsed activities and definitions, in file order
+     * @throws Exception if the file cannot be read
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    private static LoadedFile readActivities(Path path, ProgressListener progress) throws Exception {
+        if (BlockCompression.isCompressed(path)) {
+            return readCompressed(path, progress);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            long size = Files.size(path);
+            long read = 0;
+            ArrayList<Activity> loaded = new ArrayList<>();
+            ArrayList<RecurringActivity> series = new ArrayList<>();
+            int lineNumber = 0;
+            int skipped = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Load cancelled");
+                }
+                lineNumber++;
+                read += line.length() + 1;
+                progress.onProgress(Math.min(read, size), size);
+
+                if (!parseInto(line, loaded, series)) {
+                    skipped++;
+                    System.err.println("Warning: skipped malformed line " + lineNumber + " of " + path);
+                }
+            }
+            return new LoadedFile(loaded, series, skipped);
+        }
+    }
 
+    /**
+     * Parses one line of an activities file into the matching list.
+     * Blank lines are ignored.
+     *
+     * @param line       the line to parse
+     * @param activities list to add a parsed activity to
+     * @param series     list to add a parsed recurring definition to
+     * @return false if the line is not blank but could not be parsed
+     */
+    private static boolean parseInto(String line, List<Activity> activities, List<RecurringActivity> series) {
+        if (line.isBlank()) {
+            return true;
+        }
+        try {
+            if (RecurringActivity.isLine(line)) {
+                series.add(RecurringActivity.fromLine(line));
+                return true;
+            }
+            Activity activity = parseLine(line);
+            if (activity != null) {
                 activities.add(activity);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            // Reported by the caller
+        }
+        return false;
+    }
 
-                // Ensure nextId remains ahead of any loaded IDs
-                if (id >= nextId) {
-                    nextId = id + 1;
+    /**
+     * Reads a block-compressed activities file, parsing its blocks in parallel.
+     *
+     * @param path     the file to read
+     * @param progress listener notified with (blocks read, total blocks)
+     * @return the parsed activities and definitions, in file order
+     * @throws Exception if the file cannot be read or a block is corrupt
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    private static LoadedFile readCompressed(Path path, ProgressListener progress) throws Exception {
+        List<LoadedFile> blocks = BlockCompression.readBlocks(path, lines -> {
+            ArrayList<Activity> parsed = new ArrayList<>(lines.size());
+            ArrayList<RecurringActivity> series = new ArrayList<>();
+            int skipped = 0;
+            for (String line : lines) {
+                if (!parseInto(line, parsed, series)) {
+                    skipped++;
                 }
             }
+            return new LoadedFile(parsed, series, skipped);
+        }, progress);
+
+        ArrayList<Activity> loaded = new ArrayList<>();
+        ArrayList<RecurringActivity> series = new ArrayList<>();
+        int skipped = 0;
+        for (LoadedFile block : blocks) {
+            loaded.addAll(block.activities());
+            series.addAll(block.recurring());
+            skipped += block.skippedLines();
+        }
+        if (skipped > 0) {
+            // Blocks are parsed independently, so only the total is known
+            System.err.println("Warning: skipped " + skipped + " malformed lines of " + path);
+        }
+        return new LoadedFile(loaded, series, skipped);
+    }
 
+    /**
+     * Loads activities from a text file without constructing them up front.
+     * A single quick pass builds a compact index of each line's position, ID,
+     * effort level and due date; the full activity is only parsed the first time
+     * one of its other fields is read. Suggestions, ID lookups and reminders can
+     * therefore run as soon as this returns.
+     *
+     * <p>Every field is validated during that pass, and lines that fail are skipped
+     * and counted in {@link #getSkippedLineCount()} just as in an eager load, so an
+     * activity never fails when it is first touched. Block-compressed files cannot
+     * be indexed in place and are loaded eagerly instead.</p>
+     *
+     * @param filename the name of the file to load from
+     * @return true if the load succeeded, false otherwise
+     * @see LazyActivityFile
+     */
+    public boolean loadActivitiesLazily(String filename) {
+        try {
+            if (BlockCompression.isCompressed(Path.of(filename))) {
+                return loadActivitiesFromFile(filename);
+            }
+            LazyActivityFile file = LazyActivityFile.open(filename);
+            skippedLines = file.getSkippedLineCount();
+            addLoaded(new LoadedFile(file.getActivities(), file.getRecurringActivities(), skippedLines));
             return true;
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Formats an activity as one line of an activities file.
+     * Text fields are escaped with {@link CsvField#escape(String)}, so a comma in a
+     * title, description or course name does not split the line.
+     *
+     * @param a the activity to format
+     * @return the CSV line, without a line ending
+     */
+    static String toLine(Activity a) {
+        return a.getId() + "," +
+                CsvField.escape(a.getTitle()) + "," +
+                CsvField.escape(a.getDescription()) + "," +
+                a.getEffortLevel() + "," +
+                a.getTypeLabel() + "," +
+                a.getDueDate() + "," +
+                CsvField.escape(courseNameOf(a));
+    }
+
+    /**
+     * Parses one line of an activities file.
+     * Format: id,title,description,effortLevel,type[,dueDate,courseName], with text
+     * fields escaped as by {@link #toLine(Activity)}.
+     * Lines without a due date get today's date, and school activities without
+     * a course name get "Unknown".
+     *
+     * @param line the line to parse
+     * @return the activity, or null if the line has fewer than five fields
+     * @throws IllegalArgumentException if a field has an invalid value
+     * @throws java.time.format.DateTimeParseException if the due date is invalid
+     */
+    static Activity parseLine(String line) {
+        String[] p = line.split(",");
+
+        if (p.length < 5) {
+            // Skip malformed lines
+            return null;
+        }
+
+        int id = Integer.parseInt(p[0]);
+        String title = CsvField.unescape(p[1]);
+        String desc = CsvField.unescape(p[2]);
+        LevelMood level = LevelMood.valueOf(p[3]);
+        String type = p[4];
+        LocalDate due = p.length > 5 && !p[5].isEmpty() ? LocalDate.parse(p[5]) : LocalDate.now();
+        String course = p.length > 6 && !p[6].isEmpty() ? CsvField.unescape(p[6]) : "Unknown";
+
+        if (type.equalsIgnoreCase("School")) {
+            return new SchoolActivity(id, title, desc, level, due, course);
+        }
+        return new PersonalActivity(id, title, desc, level, due);
+    }
+
+    /**
+     * Returns the course name of an activity, looking through lazily loaded,
+     * column-store and recurring activities to the data behind them.
+     *
+     * @param a the activity
+     * @return the course name, or "" if the activity is not a school activity
+     */
+    static String courseNameOf(Activity a) {
+        if (a instanceof LazyActivityFile.LazyActivity lazy) {
+            a = lazy.materialize();
+        }
+        String course = null;
+        if (a instanceof RecurringActivity.Occurrence occurrence) {
+            course = occurrence.getSeries().getCourseName();
+        } else if (a instanceof SchoolActivity school) {
+            course = school.getCourseName();
+        } else if (a instanceof ActivityStore.View view) {
+            course = view.getCourseName();
+        }
+        return course != null ? course : "";
+    }
+
+    /**
+     * Returns an unpublished copy of an activity with the same ID and content.
+     *
+     * @param a the activity to copy
+     * @return a new school or personal activity
+     */
+    static Activity copyOf(Activity a) {
+        if (a.getTypeLabel().equalsIgnoreCase("School")) {
+            return new SchoolActivity(a.getId(), a.getTitle(), a.getDescription(),
+                    a.getEffortLevel(), a.getDueDate(), courseNameOf(a));
+        }
+        return new PersonalActivity(a.getId(), a.getTitle(), a.getDescription(),
+                a.getEffortLevel(), a.getDueDate());
+    }
+
+    /**
+     * Adds loaded activities and recurring definitions, keeping their IDs, with the
+     * activities published as one new version. IDs must stay unique, so a definition is
+     * skipped if its ID is already open or recurring, and an activity is also skipped if
+     * its ID was archived when it was completed. Anything whose ID appeared earlier in
+     * the same file is skipped too.
+     *
+     * @param loaded the activities and definitions read from a file
+     */
+    private void addLoaded(LoadedFile loaded) {
+        synchronized (writeLock) {
+            ArrayList<Activity> accepted = new ArrayList<>(loaded.activities().size());
+            HashSet<Integer> seen = new HashSet<>();
+            for (RecurringActivity r : recurring) {
+                seen.add(r.getId());
+            }
+            for (RecurringActivity r : loaded.recurring()) {
+                int id = r.getId();
+                if (byId.containsKey(id) || !seen.add(id)) {
+                    continue;
+                }
+                recurring.add(r);
+                publishSeries(ActivityEvent.Kind.ADDED, r);
+                if (id >= nextId) {
+                    nextId = id + 1;
+                }
+            }
+            for (Activity activity : loaded.activities()) {
+                int id = activity.getId();
+                if (byId.containsKey(id) || !seen.add(id) || archive.containsId(id)) {
+                    continue;
+                }
+                accepted.add(activity);
+                // Ensure nextId remains ahead of any loaded IDs
+                if (id >= nextId) {
+                    nextId = id + 1;
+                }
+            }
+            publishAdded(accepted);
+        }
+    }
+
     /**
      * Exports a specific activity to an iCalendar (.ics) file that can be imported
      * into Google Calendar or other calendar applications.
+     * A recurring activity is exported as a single event with an RRULE, so the
+     * calendar expands the occurrences itself.
      *
      * @param activityId the ID of the activity to export
      * @return true if the export succeeded, false if activity is not found or an error occurs
      */
     public boolean exportActivityToGoogleCalendar(int activityId) {
 
-        Activity selected = null;
-
-        for (Activity a : activities) {
-            if (a.getId() == activityId) {
-                selected = a;
-                break;
-            }
-        }
+        Activity selected = getActivity(activityId);
+        RecurringActivity series = null;
 
         if (selected == null) {
-            return false;
+            series = getRecurringActivity(activityId);
+            if (series == null) {
+                return false;
+            }
         }
 
-        String fileName = "activity_" + selected.getId() + ".ics";
+        String fileName = "activity_" + activityId + ".ics";
+        String title = series != null ? series.getTitle() : selected.getTitle();
+        String description = series != null ? series.getDescription() : selected.getDescription();
+        LocalDate start = series != null ? series.getStart() : selected.getDueDate();
 
         try (PrintWriter pw = new PrintWriter(fileName)) {
 
             pw.println("BEGIN:VCALENDAR");
             pw.println("VERSION:2.0");
             pw.println("BEGIN:VEVENT");
-            pw.println("SUMMARY:" + selected.getTitle());
-            pw.println("DESCRIPTION:" + selected.getDescription());
+            pw.println("SUMMARY:" + title);
+            pw.println("DESCRIPTION:" + description);
             pw.println("DTSTART:" +
-                    selected.getDueDate().toString().replace("-", "") +
+                    start.toString().replace("-", "") +
                     "T090000");
+            if (series != null) {
+                pw.println("RRULE:" + series.toRRule());
+            }
             pw.println("END:VEVENT");
             pw.println("END:VCALENDAR");
 
@@ -0,0 +1,285 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A composable filter over activities.
+ *
+ * <p>Queries are built from simple conditions and combined with {@link #and},
+ * {@link #or} and {@link #not}, for example:</p>
+ * <pre>
+ * ActivityQuery q = ActivityQuery.effort(LevelMood.HIGH)
+ *         .and(ActivityQuery.course("CIS111B"))
+ *         .and(ActivityQuery.dueBetween(today, today.plusDays(7)));
+ * </pre>
+ *
+ * <p>Any query can be tested against a single activity with {@link #matches(Activity)}.
+ * {@link ActivityManager#query(ActivityQuery)} also uses the effort, type, course and
+ * due-date conditions of a query to look up candidates in an index instead of
+ * scanning every activity.</p>
+ *
+ * <p>This class is immutable and thread-safe.</p>
+ *
+ * @see ActivityManager#query(ActivityQuery)
+ * @see ActivityIndex
+ */
+public final class ActivityQuery {
+
+    /**
+     * The kinds of condition a query node can represent.
+     */
+    enum Kind {
+        EFFORT, TYPE, COURSE, DUE, COMPLETED, TEXT, AND, OR, NOT
+    }
+
+    /** What this node tests. */
+    private final Kind kind;
+
+    /** Effort level for EFFORT nodes. */
+    private final LevelMood effort;
+
+    /** Type label, course name or lower-case search text, depending on the kind. */
+    private final String text;
+
+    /** First due day for DUE nodes. */
+    private final LocalDate from;
+
+    /** Last due day for DUE nodes. */
+    private final LocalDate to;
+
+    /** Expected completion status for COMPLETED nodes. */
+    private final boolean completed;
+
+    /** Child queries for AND, OR and NOT nodes. */
+    private final List<ActivityQuery> children;
+
+    /**
+     * Creates a query node.
+     *
+     * @param kind      what the node tests
+     * @param effort    effort level, if any
+     * @param text      text value, if any
+     * @param from      first due day, if any
+     * @param to        last due day, if any
+     * @param completed completion status, if used
+     * @param children  child queries
+     */
+    private ActivityQuery(Kind kind, LevelMood effort, String text, LocalDate from, LocalDate to,
+                          boolean completed, List<ActivityQuery> children) {
+        this.kind = kind;
+        this.effort = effort;
+        this.text = text;
+        this.from = from;
+        this.to = to;
+        this.completed = completed;
+        this.children = children;
+    }
+
+    /**
+     * Matches activities with the given effort level.
+     *
+     * @param level the effort level (cannot be null)
+     * @return the query
+     * @throws IllegalArgumentException if level is null
+     */
+    public static ActivityQuery effort(LevelMood level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Effort level cannot be null");
+        }
+        return new ActivityQuery(Kind.EFFORT, level, null, null, null, false, List.of());
+    }
+
+    /**
+     * Matches activities with the given type label ("School" or "Personal"), ignoring case.
+     *
+     * @param typeLabel the type label (cannot be null)
+     * @return the query
+     * @throws IllegalArgumentException if typeLabel is null
+     */
+    public static ActivityQuery type(String typeLabel) {
+        if (typeLabel == null) {
+            throw new IllegalArgumentException("Type label cannot be null");
+        }
+        return new ActivityQuery(Kind.TYPE, null, typeLabel, null, null, false, List.of());
+    }
+
+    /**
+     * Matches school activities for the given course.
+     *
+     * @param courseName the course name (cannot be null)
+     * @return the query
+     * @throws IllegalArgumentException if courseName is null
+     */
+    public static ActivityQuery course(String courseName) {
+        if (courseName == null) {
+            throw new IllegalArgumentException("Course name cannot be null");
+        }
+        return new ActivityQuery(Kind.COURSE, null, courseName, null, null, false, List.of());
+    }
+
+    /**
+     * Matches activities due in [from, to].
+     *
+     * @param from first day (inclusive, cannot be null)
+     * @param to   last day (inclusive, cannot be null)
+     * @return the query
+     * @throws IllegalArgumentException if from or to is null
+     */
+    public static ActivityQuery dueBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Date range cannot be null");
+        }
+        return new ActivityQuery(Kind.DUE, null, null, from, to, false, List.of());
+    }
+
+    /**
+     * Matches activities with the given completion status.
+     * {@link ActivityManager#query(ActivityQuery)} searches the archive of completed
+     * activities as well as the open ones for any query that contains this condition.
+     *
+     * @param isCompleted true to match completed activities
+     * @return the query
+     */
+    public static ActivityQuery completed(boolean isCompleted) {
+        return new ActivityQuery(Kind.COMPLETED, null, null, null, null, isCompleted, List.of());
+    }
+
+    /**
+     * Matches activities whose title or description contains the text, ignoring case.
+     *
+     * @param search the text to look for (cannot be null)
+     * @return the query
+     * @throws IllegalArgumentException if search is null
+     */
+    public static ActivityQuery text(String search) {
+        if (search == null) {
+            throw new IllegalArgumentException("Search text cannot be null");
+        }
+        return new ActivityQuery(Kind.TEXT, null, search.toLowerCase(), null, null, false, List.of());
+    }
+
+    /**
+     * Returns a query that matches when both this and the other query match.
+     *
+     * @param other the other query (cannot be null)
+     * @return the combined query
+     * @throws IllegalArgumentException if other is null
+     */
+    public ActivityQuery and(ActivityQuery other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        ArrayList<ActivityQuery> parts = new ArrayList<>(conjuncts());
+        parts.addAll(other.conjuncts());
+        return new ActivityQuery(Kind.AND, null, null, null, null, false, List.copyOf(parts));
+    }
+
+    /**
+     * Returns a query that matches when this or the other query matches.
+     *
+     * @param other the other query (cannot be null)
+     * @return the combined query
+     * @throws IllegalArgumentException if other is null
+     */
+    public ActivityQuery or(ActivityQuery other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        return new ActivityQuery(Kind.OR, null, null, null, null, false, List.of(this, other));
+    }
+
+    /**
+     * Returns a query that matches when this query does not.
+     *
+     * @return the negated query
+     */
+    public ActivityQuery not() {
+        return new ActivityQuery(Kind.NOT, null, null, null, null, false, List.of(this));
+    }
+
+    /**
+     * Tests the query against one activity.
+     *
+     * @param a the activity to test (cannot be null)
+     * @return true if the activity matches
+     */
+    public boolean matches(Activity a) {
+        return switch (kind) {
+            case EFFORT -> a.getEffortLevel() == effort;
+            case TYPE -> a.getTypeLabel().equalsIgnoreCase(text);
+            case COURSE -> ActivityManager.courseNameOf(a).equals(text);
+            case DUE -> !a.getDueDate().isBefore(from) && !a.getDueDate().isAfter(to);
+            case COMPLETED -> a.isCompleted() == completed;
+            case TEXT -> a.getTitle().toLowerCase().contains(text)
+                    || a.getDescription().toLowerCase().contains(text);
+            case AND -> children.stream().allMatch(c -> c.matches(a));
+            case OR -> children.stream().anyMatch(c -> c.matches(a));
+            case NOT -> !children.get(0).matches(a);
+        };
+    }
+
+    /**
+     * Returns whether this query tests completion status anywhere, so it may
+     * match completed activities.
+     *
+     * @return true if the query contains a {@link #completed(boolean)} condition
+     */
+    boolean testsCompletion() {
+        return kind == Kind.COMPLETED || children.stream().anyMatch(ActivityQuery::testsCompletion);
+    }
+
+    /**
+     * Returns the conditions that must all hold: the children of an AND node,
+     * or this query on its own.
+     *
+     * @return the top-level conjuncts
+     */
+    List<ActivityQuery> conjuncts() {
+        return kind == Kind.AND ? children : List.of(this);
+    }
+
+    /**
+     * Returns what this node tests.
+     *
+     * @return the kind
+     */
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the effort level of an EFFORT node.
+     *
+     * @return the effort level
+     */
+    LevelMood getEffort() {
+        return effort;
+    }
+
+    /**
+     * Returns the text value of a TYPE, COURSE or TEXT node.
+     *
+     * @return the text
+     */
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the first day of a DUE node.
+     *
+     * @return the first day
+     */
+    LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the last day of a DUE node.
+     *
+     * @return the last day
+     */
+    LocalDate getTo() {
+        return to;
+    }
+}
@@ -0,0 +1,528 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Compact, column-oriented storage for very large activity backlogs.
+ * Instead of one object per activity, each field is kept in a primitive array
+ * (id, effort, due date as epoch day, type, completion bit, and references into a
+ * shared string dictionary), which keeps memory and garbage collection cost low
+ * at millions of activities.
+ *
+ * <p>{@link #get(int)} hands out lightweight {@link Activity} views backed by the
+ * columns, so code written against {@code Activity} keeps working. Views read and
+ * write the store directly; changes made through {@link Activity#setId(int)} or
+ * {@link Activity#setCompleted(boolean)} are visible to every view of that row.
+ * Views are meant to be short-lived: create them as needed rather than keeping
+ * one per row. Views cannot be added to an {@link ActivityManager}, since the store
+ * could still change them after they were published.</p>
+ *
+ * <p>{@link ActivityManager.Snapshot#toStore()} builds a read-only store from a
+ * snapshot. Adding rows or changing IDs or completion, through the store or any of
+ * its views, then throws {@link IllegalStateException}.</p>
+ *
+ * <p>An open-addressing index from ID to row makes {@link #indexOf(int)} O(1)
+ * without boxing.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @see Activity
+ * @see ActivityManager
+ */
+public class ActivityStore {
+
+    /** Type code for personal activities. */
+    private static final byte TYPE_PERSONAL = 0;
+
+    /** Type code for school activities. */
+    private static final byte TYPE_SCHOOL = 1;
+
+    /** Dictionary reference used when a field has no string (e.g. no course). */
+    private static final int NO_STRING = -1;
+
+    /** Cached effort levels, indexed by ordinal. */
+    private static final LevelMood[] LEVELS = LevelMood.values();
+
+    /** Activity IDs, one per row. */
+    private int[] ids;
+
+    /** Effort level ordinals, one per row. */
+    private byte[] efforts;
+
+    /** Due dates as {@link LocalDate#toEpochDay()}, one per row. */
+    private int[] dueDays;
+
+    /** Activity type codes, one per row. */
+    private byte[] types;
+
+    /** Completion flags, 64 rows per long. */
+    private long[] completed;
+
+    /** Dictionary references for titles, one per row. */
+    private int[] titleRefs;
+
+    /** Dictionary references for descriptions, one per row. */
+    private int[] descriptionRefs;
+
+    /** Dictionary references for course names, one per row. */
+    private int[] courseRefs;
+
+    /** Number of rows in use. */
+    private int size;
+
+    /** Whether rows can no longer be added or changed. */
+    private boolean readOnly;
+
+    /** ID index keys; a slot is empty when its row entry is 0. Length is a power of two. */
+    private int[] indexIds = new int[16];
+
+    /** ID index values: row + 1, or 0 for an empty slot. */
+    private int[] indexRows = new int[16];
+
+    /** Number of occupied ID index slots. */
+    private int indexed;
+
+    /** Distinct strings, indexed by dictionary reference. */
+    private final ArrayList<String> strings = new ArrayList<>();
+
+    /** Reverse lookup from string to dictionary reference. */
+    private final HashMap<String, Integer> stringRefs = new HashMap<>();
+
+    /**
+     * Creates an empty store with room for 16 activities.
+     */
+    public ActivityStore() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty store with the given initial capacity.
+     *
+     * @param capacity the number of activities to reserve room for
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public ActivityStore(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        ids = new int[capacity];
+        efforts = new byte[capacity];
+        dueDays = new int[capacity];
+        types = new byte[capacity];
+        completed = new long[(capacity + 63) / 64];
+        titleRefs = new int[capacity];
+        descriptionRefs = new int[capacity];
+        courseRefs = new int[capacity];
+    }
+
+    /**
+     * Copies an activity into the store.
+     *
+     * @param activity the activity to add (cannot be null)
+     * @return the row index of the new activity
+     * @throws IllegalArgumentException if activity is null
+     * @throws IllegalStateException if the store is read-only
+     */
+    public int add(Activity activity) {
+        if (activity == null) {
+            throw new IllegalArgumentException("Activity cannot be null");
+        }
+        String course = ActivityManager.courseNameOf(activity);
+        int row = add(activity.getId(), activity.getTitle(), activity.getDescription(),
+                activity.getEffortLevel(), activity.getDueDate(), activity.getTypeLabel(),
+                course.isEmpty() ? null : course);
+        setCompleted(row, activity.isCompleted());
+        return row;
+    }
+
+    /**
+     * Copies every activity in a collection into the store.
+     *
+     * @param activities the activities to add (cannot be null)
+     * @throws IllegalArgumentException if activities is null
+     * @throws IllegalStateException if the store is read-only
+     */
+    public void addAll(Collection<? extends Activity> activities) {
+        if (activities == null) {
+            throw new IllegalArgumentException("Activities cannot be null");
+        }
+        ensureCapacity(size + activities.size());
+        for (Activity a : activities) {
+            add(a);
+        }
+    }
+
+    /**
+     * Adds an activity from its individual fields.
+     *
+     * @param id          the activity ID
+     * @param title       the title (cannot be null or empty)
+     * @param description the description (may be null)
+     * @param effortLevel the effort level (cannot be null)
+     * @param dueDate     the due date (cannot be null)
+     * @param typeLabel   "School" or "Personal"
+     * @param courseName  the course name for school activities (may be null)
+     * @return the row index of the new activity
+     * @throws IllegalArgumentException if title is empty or effortLevel or dueDate is null
+     * @throws IllegalStateException if the store is read-only
+     */
+    public int add(int id, String title, String description, LevelMood effortLevel,
+                   LocalDate dueDate, String typeLabel, String courseName) {
+        checkWritable();
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Title cannot be empty.");
+        }
+        if (effortLevel == null || dueDate == null) {
+            throw new IllegalArgumentException("Effort level and due date cannot be null");
+        }
+
+        ensureCapacity(size + 1);
+        int row = size++;
+        ids[row] = id;
+        efforts[row] = (byte) effortLevel.ordinal();
+        dueDays[row] = Math.toIntExact(dueDate.toEpochDay());
+        types[row] = "School".equalsIgnoreCase(typeLabel) ? TYPE_SCHOOL : TYPE_PERSONAL;
+        titleRefs[row] = ref(title.trim());
+        descriptionRefs[row] = ref(description != null ? description : "");
+        courseRefs[row] = courseName != null ? ref(courseName) : NO_STRING;
+        indexPut(id, row);
+        return row;
+    }
+
+    /**
+     * Returns a view of the activity at the given row.
+     * Views are cheap to create and hold no copy of the data.
+     *
+     * @param row the row index
+     * @return an Activity backed by the store
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    public Activity get(int row) {
+        checkRow(row);
+        return new View(row);
+    }
+
+    /**
+     * Returns the row index of the activity with the given ID.
+     * If several rows share an ID, the most recently added or renumbered one is returned.
+     *
+     * @param id the activity ID
+     * @return the row index, or -1 if no activity has that ID
+     */
+    public int indexOf(int id) {
+        int slot = slotOf(id);
+        return indexRows[slot] - 1;
+    }
+
+    /**
+     * Changes the ID of the activity at the given row.
+     *
+     * @param row the row index
+     * @param id  the new ID
+     * @throws IndexOutOfBoundsException if row is out of range
+     * @throws IllegalStateException if the store is read-only
+     */
+    public void setId(int row, int id) {
+        checkRow(row);
+        checkWritable();
+        int slot = slotOf(ids[row]);
+        if (indexRows[slot] == row + 1) {
+            indexRemove(slot);
+        }
+        ids[row] = id;
+        indexPut(id, row);
+    }
+
+    /**
+     * Returns whether the store is read-only.
+     *
+     * @return true if rows can no longer be added or changed
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Makes the store read-only. Used for stores built from a snapshot.
+     */
+    void makeReadOnly() {
+        readOnly = true;
+    }
+
+    /**
+     * Returns the number of activities in the store.
+     *
+     * @return the activity count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns views of all open activities whose effort level matches the
+     * recommendation for a mood. Only the effort and completion columns are scanned.
+     *
+     * @param mood the user's current mood
+     * @return views of the matching activities
+     * @throws IllegalArgumentException if mood is null
+     */
+    public ArrayList<Activity> suggestActivitiesByMood(MoodType mood) {
+        if (mood == null) {
+            throw new IllegalArgumentException("Mood cannot be null");
+        }
+        byte target = (byte) mood.getRecommendedEffortLevel().ordinal();
+        ArrayList<Activity> result = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            if (efforts[row] == target && !isCompleted(row)) {
+                result.add(new View(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the activity at the given row is completed.
+     *
+     * @param row the row index
+     * @return true if the activity is completed
+     */
+    public boolean isCompleted(int row) {
+        checkRow(row);
+        return (completed[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Sets the completion flag of the activity at the given row.
+     *
+     * @param row       the row index
+     * @param isDone    true to mark the activity completed
+     * @throws IllegalStateException if the store is read-only
+     */
+    public void setCompleted(int row, boolean isDone) {
+        checkRow(row);
+        checkWritable();
+        if (isDone) {
+            completed[row >>> 6] |= 1L << row;
+        } else {
+            completed[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    /**
+     * Returns the dictionary reference for a string, adding it if needed.
+     *
+     * @param s the string
+     * @return its reference
+     */
+    private int ref(String s) {
+        Integer existing = stringRefs.get(s);
+        if (existing != null) {
+            return existing;
+        }
+        int ref = strings.size();
+        strings.add(s);
+        stringRefs.put(s, ref);
+        return ref;
+    }
+
+    /**
+     * Returns the ID index slot holding an ID, or the empty slot where it would go.
+     *
+     * @param id the activity ID
+     * @return the slot
+     */
+    private int slotOf(int id) {
+        int mask = indexIds.length - 1;
+        int slot = mix(id) & mask;
+        while (indexRows[slot] != 0 && indexIds[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Maps an ID to a row in the ID index, growing the index when it is over half full.
+     *
+     * @param id  the activity ID
+     * @param row the row index
+     */
+    private void indexPut(int id, int row) {
+        int slot = slotOf(id);
+        if (indexRows[slot] == 0) {
+            if (++indexed * 2 > indexIds.length) {
+                rehash(indexIds.length * 2);
+                slot = slotOf(id);
+            }
+            indexIds[slot] = id;
+        }
+        indexRows[slot] = row + 1;
+    }
+
+    /**
+     * Empties an ID index slot, shifting later entries of the same probe run back
+     * so lookups never stop early at the gap.
+     *
+     * @param slot the occupied slot to empty
+     */
+    private void indexRemove(int slot) {
+        int mask = indexIds.length - 1;
+        indexed--;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (indexRows[next] != 0) {
+            int home = mix(indexIds[next]) & mask;
+            // Move the entry into the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                indexIds[gap] = indexIds[next];
+                indexRows[gap] = indexRows[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        indexRows[gap] = 0;
+    }
+
+    /**
+     * Rebuilds the ID index with a new capacity.
+     *
+     * @param capacity the new number of slots (a power of two)
+     */
+    private void rehash(int capacity) {
+        int[] oldIds = indexIds;
+        int[] oldRows = indexRows;
+        indexIds = new int[capacity];
+        indexRows = new int[capacity];
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldRows[i] != 0) {
+                int slot = slotOf(oldIds[i]);
+                indexIds[slot] = oldIds[i];
+                indexRows[slot] = oldRows[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of an ID so sequential IDs do not cluster.
+     *
+     * @param id the activity ID
+     * @return the mixed hash
+     */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Grows the columns so they can hold at least the given number of rows.
+     *
+     * @param needed the required capacity
+     */
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(needed, Math.max(16, ids.length * 2));
+        ids = Arrays.copyOf(ids, capacity);
+        efforts = Arrays.copyOf(efforts, capacity);
+        dueDays = Arrays.copyOf(dueDays, capacity);
+        types = Arrays.copyOf(types, capacity);
+        completed = Arrays.copyOf(completed, (capacity + 63) / 64);
+        titleRefs = Arrays.copyOf(titleRefs, capacity);
+        descriptionRefs = Arrays.copyOf(descriptionRefs, capacity);
+        courseRefs = Arrays.copyOf(courseRefs, capacity);
+    }
+
+    /**
+     * Checks that the store can still be changed.
+     *
+     * @throws IllegalStateException if the store is read-only
+     */
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Activity store is read-only");
+        }
+    }
+
+    /**
+     * Checks that a row index is in range.
+     *
+     * @param row the row index
+     * @throws IndexOutOfBoundsException if row is out of range
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for size " + size);
+        }
+    }
+
+    /**
+     * Flyweight {@link Activity} that reads and writes one row of the store.
+     */
+    final class View extends Activity {
+
+        /** The row this view represents. */
+        private final int row;
+
+        /**
+         * Creates a view of a row. The fields inherited from Activity are unused.
+         *
+         * @param row the row index
+         */
+        private View(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int getId() { return ids[row]; }
+
+        @Override
+        public void setId(int id) {
+            checkNotPublished();
+            ActivityStore.this.setId(row, id);
+        }
+
+        @Override
+        public String getTitle() { return strings.get(titleRefs[row]); }
+
+        @Override
+        public String getDescription() { return strings.get(descriptionRefs[row]); }
+
+        @Override
+        public LevelMood getEffortLevel() { return LEVELS[efforts[row]]; }
+
+        @Override
+        public LocalDate getDueDate() { return LocalDate.ofEpochDay(dueDays[row]); }
+
+        @Override
+        public boolean isCompleted() { return ActivityStore.this.isCompleted(row); }
+
+        @Override
+        public void setCompleted(boolean isDone) {
+            checkNotPublished();
+            ActivityStore.this.setCompleted(row, isDone);
+        }
+
+        @Override
+        public String getTypeLabel() { return types[row] == TYPE_SCHOOL ? "School" : "Personal"; }
+
+        /**
+         * Returns the course name of a school activity.
+         *
+         * @return the course name, or null for personal activities
+         */
+        public String getCourseName() {
+            return courseRefs[row] == NO_STRING ? null : strings.get(courseRefs[row]);
+        }
+
+        @Override
+        public String toString() {
+            String base = String.format("Activity{id=%d, title='%s', effort=%s, due=%s}",
+                    getId(), getTitle(), getEffortLevel(), getDueDate());
+            return types[row] == TYPE_SCHOOL
+                    ? base + " [Course=" + getCourseName() + "]"
+                    : base + " [Personal]";
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import javax.swing.SwingWorker;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs a slow operation (file I/O, network calls) off the Swing event thread.
+ * Progress is published through the standard {@code "progress"} property
+ * (0-100), and the result is handed to a callback on the event thread once the
+ * work finishes.
+ *
+ * <p>Calling {@link #cancel(boolean) cancel(true)} interrupts the worker thread.
+ * Work that checks {@link Thread#isInterrupted()} stops early, and no callback
+ * is invoked for a cancelled task.</p>
+ *
+ * @param <T> the type of result produced by the work
+ * @see ProgressListener
+ */
+public class BackgroundTask<T> extends SwingWorker<T, Void> {
+
+    /**
+     * A unit of work that can report its progress.
+     *
+     * @param <T> the type of result produced
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+
+        /**
+         * Performs the work.
+         *
+         * @param progress listener to report progress to
+         * @return the result of the work
+         * @throws Exception if the work fails
+         */
+        T run(ProgressListener progress) throws Exception;
+    }
+
+    /** The work to run in the background. */
+    private final Work<T> work;
+
+    /** Called on the event thread with the result when the work succeeds. */
+    private final Consumer<T> onSuccess;
+
+    /** Called on the event thread with the cause when the work fails. */
+    private final Consumer<Exception> onFailure;
+
+    /**
+     * Creates a new background task. Call {@link #execute()} to start it.
+     *
+     * @param work      the work to run (cannot be null)
+     * @param onSuccess callback for the result (cannot be null)
+     * @param onFailure callback for a failure (cannot be null)
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public BackgroundTask(Work<T> work, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        if (work == null || onSuccess == null || onFailure == null) {
+            throw new IllegalArgumentException("Work and callbacks cannot be null");
+        }
+        this.work = work;
+        this.onSuccess = onSuccess;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Runs the work on a background thread, converting its progress
+     * reports into a percentage.
+     *
+     * @return the result of the work
+     * @throws Exception if the work fails
+     */
+    @Override
+    protected T doInBackground() throws Exception {
+        return work.run((done, total) -> {
+            if (total > 0) {
+                setProgress((int) Math.max(0, Math.min(100, done * 100 / total)));
+            }
+        });
+    }
+
+    /**
+     * Delivers the result or failure on the event thread.
+     * Nothing is delivered if the task was cancelled.
+     */
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            onSuccess.accept(get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            onFailure.accept(cause instanceof Exception ex ? ex : new Exception(cause));
+        }
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes line-based text files as a sequence of independently
+ * compressed blocks.
+ *
+ * <p>A compressed file starts with a header: the magic number "MPBC", a format
+ * version byte and a codec byte ({@link #CODEC_DEFLATE}). Each block follows as
+ * its uncompressed length, its compressed length and the compressed bytes, and a
+ * block with both lengths zero ends the file. Blocks always end on a line
+ * boundary, so each one can be inflated and parsed on its own, in parallel with
+ * the others. Lines may be at most 64 KB, which bounds the size of every block.</p>
+ *
+ * <p>Files without the header are plain text and are left to the normal readers.</p>
+ *
+ * @see ActivityManager#saveActivitiesToFile(String, ProgressListener, boolean)
+ * @see ActivityManager#loadActivitiesFromFile(String, ProgressListener)
+ */
+public final class BlockCompression {
+
+    /** Marks a block-compressed file ("MPBC"). */
+    private static final int MAGIC = 0x4D504243;
+
+    /** File format version. */
+    private static final byte VERSION = 1;
+
+    /** Codec ID for java.util.zip DEFLATE compression. */
+    public static final byte CODEC_DEFLATE = 1;
+
+    /** Uncompressed size at which a block is closed, at the next line end. */
+    private static final int BLOCK_SIZE = 256 * 1024;
+
+    /** Longest line that can be written; a block never runs further than this past the block size. */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /** Largest uncompressed block that is written or accepted when reading. */
+    private static final int MAX_BLOCK_SIZE = BLOCK_SIZE + MAX_LINE_LENGTH;
+
+    /** This class only has static methods. */
+    private BlockCompression() {
+    }
+
+    /**
+     * Returns whether a file starts with the block compression header.
+     *
+     * @param path the file to check
+     * @return true if the file is block-compressed
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isCompressed(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a stream that compresses everything written to it into blocks.
+     * Closing the stream writes the final block and the end marker.
+     *
+     * @param out the stream to write the compressed file to
+     * @return a stream accepting the uncompressed text
+     * @throws IOException if the header cannot be written
+     */
+    public static OutputStream compressingStream(OutputStream out) throws IOException {
+        return new BlockOutputStream(out);
+    }
+
+    /**
+     * Reads a block-compressed file, inflating and converting its blocks in parallel.
+     * Each block's lines are passed to {@code parser}, and the results are returned
+     * in file order.
+     *
+     * <p>Block lengths are checked against the largest block the writer produces
+     * before anything is allocated, so a corrupt file fails with an exception rather
+     * than running out of memory. Interrupting the calling thread stops the read
+     * before the next block is read or parsed.</p>
+     *
+     * @param path     the file to read
+     * @param parser   turns the lines of one block into a result; called concurrently
+     * @param progress notified with (blocks read, total blocks)
+     * @param <T>      the type of result per block
+     * @return one result per block, in file order
+     * @throws IOException if the file is not block-compressed, uses an unknown codec, or is corrupt
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public static <T> List<T> readBlocks(Path path, Function<List<String>, T> parser,
+                                         ProgressListener progress)
+            throws IOException, InterruptedException {
+        Thread caller = Thread.currentThread();
+        ArrayList<byte[]> compressed = new ArrayList<>();
+        ArrayList<Integer> sizes = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            readHeader(in);
+            while (true) {
+                if (caller.isInterrupted()) {
+                    throw new InterruptedException("Load cancelled");
+                }
+                int size = in.readInt();
+                int length = in.readInt();
+                if (size == 0 && length == 0) {
+                    break;
+                }
+                if (size <= 0 || size > MAX_BLOCK_SIZE
+                        || length <= 0 || length > maxCompressedLength(size)) {
+                    throw new IOException("Corrupt block in " + path + ": " + size
+                            + " bytes compressed to " + length);
+                }
+                byte[] block = new byte[length];
+                in.readFully(block);
+                compressed.add(block);
+                sizes.add(size);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated compressed file " + path, e);
+        }
+
+        int total = compressed.size();
+        int[] done = {0};
+        try {
+            return IntStream.range(0, total).parallel()
+                    .mapToObj(i -> {
+                        if (caller.isInterrupted()) {
+                            throw new CancellationException();
+                        }
+                        T result = parser.apply(inflateLines(compressed.get(i), sizes.get(i)));
+                        synchronized (done) {
+                            progress.onProgress(++done[0], total);
+                        }
+                        return result;
+                    })
+                    .collect(Collectors.toList());
+        } catch (CancellationException e) {
+            throw new InterruptedException("Load cancelled");
+        } catch (IllegalStateException e) {
+            throw new IOException("Corrupt block in " + path, e);
+        }
+    }
+
+    /**
+     * Returns the most bytes DEFLATE can produce for a block, allowing for
+     * incompressible data and stream overhead.
+     *
+     * @param size the uncompressed size
+     * @return the largest valid compressed length
+     */
+    private static int maxCompressedLength(int size) {
+        return size + (size >> 12) + (size >> 14) + 64;
+    }
+
+    /**
+     * Reads and checks the file header.
+     *
+     * @param in the stream positioned at the start of the file
+     * @throws IOException if the header is missing or names an unknown codec
+     */
+    private static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a block-compressed file");
+        }
+        byte version = in.readByte();
+        byte codec = in.readByte();
+        if (version != VERSION || codec != CODEC_DEFLATE) {
+            throw new IOException("Unsupported format version " + version + " or codec " + codec);
+        }
+    }
+
+    /**
+     * Inflates one block and splits it into lines.
+     *
+     * @param block the compressed bytes
+     * @param size  the uncompressed size
+     * @return the lines in the block
+     * @throws IllegalStateException if the block cannot be inflated
+     */
+    private static List<String> inflateLines(byte[] block, int size) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block);
+            byte[] out = new byte[size];
+            int n = 0;
+            while (n < size && !inflater.finished()) {
+                int read = inflater.inflate(out, n, size - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != size) {
+                throw new IllegalStateException("Block inflated to " + n + " bytes, expected " + size);
+            }
+            return new String(out, StandardCharsets.UTF_8).lines().toList();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Buffers written bytes and, once the buffer passes the block size,
+     * emits everything up to the last complete line as a compressed block.
+     */
+    private static final class BlockOutputStream extends OutputStream {
+
+        /** Destination for the compressed file. */
+        private final DataOutputStream out;
+
+        /** Compressor reused for every block. */
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+        /** Uncompressed bytes of the current block. */
+        private byte[] buffer = new byte[BLOCK_SIZE + 1024];
+
+        /** Number of bytes in the buffer. */
+        private int count;
+
+        /** Whether the stream has been closed. */
+        private boolean closed;
+
+        /**
+         * Writes the header and prepares the first block.
+         *
+         * @param out destination for the compressed file
+         * @throws IOException if the header cannot be written
+         */
+        BlockOutputStream(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            this.out.writeByte(CODEC_DEFLATE);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (count + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + len));
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+
+            while (count >= BLOCK_SIZE) {
+                int lastLineEnd = Math.min(count, MAX_BLOCK_SIZE) - 1;
+                while (lastLineEnd >= 0 && buffer[lastLineEnd] != '\n') {
+                    lastLineEnd--;
+                }
+                if (lastLineEnd < 0) {
+                    if (count > MAX_BLOCK_SIZE) {
+                        throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+                    }
+                    break;
+                }
+                writeBlock(lastLineEnd + 1);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (count > 0) {
+                    writeBlock(count);
+                }
+                out.writeInt(0);
+                out.writeInt(0);
+                out.close();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        /**
+         * Compresses the first {@code size} buffered bytes as one block and keeps the rest.
+         *
+         * @param size the number of bytes to put in the block
+         * @throws IOException if the block cannot be written
+         */
+        private void writeBlock(int size) throws IOException {
+            deflater.reset();
+            deflater.setInput(buffer, 0, size);
+            deflater.finish();
+            byte[] compressed = new byte[Math.max(64, size / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            out.writeInt(size);
+            out.writeInt(length);
+            out.write(compressed, 0, length);
+            System.arraycopy(buffer, size, buffer, 0, count - size);
+            count -= size;
+        }
+    }
+}
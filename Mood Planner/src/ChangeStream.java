@@ -0,0 +1,273 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Delivers change events to subscribers in batches on background threads.
+ *
+ * <p>Each subscriber gets its own bounded ring buffer and its own dispatch thread.
+ * Publishing only copies the event into each buffer, so a slow subscriber never
+ * slows down the producer or other subscribers. When a buffer is full, the
+ * subscriber's {@link OverflowPolicy} decides what happens.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @param <E> the type of event
+ * @see ActivityManager#getChangeStream()
+ * @see MoodManager#getChangeStream()
+ */
+public class ChangeStream<E> {
+
+    /**
+     * What to do with a new event when a subscriber's buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Discard the oldest buffered event to make room. The producer never waits. */
+        DROP_OLDEST,
+        /** Discard the new event. The producer never waits. */
+        DROP_NEWEST,
+        /**
+         * Make the producer wait until there is room. This gives lossless delivery
+         * but lets a slow subscriber hold up writes, so use it with care.
+         */
+        BLOCK
+    }
+
+    /**
+     * A registered subscriber. Closing it stops delivery and ends its thread.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        /** Buffered events. */
+        private final Object[] ring;
+
+        /** Position of the oldest buffered event. */
+        private int headIndex;
+
+        /** Number of buffered events. */
+        private int size;
+
+        /** What to do when the buffer is full. */
+        private final OverflowPolicy policy;
+
+        /** Largest number of events handed to the handler at once. */
+        private final int maxBatch;
+
+        /** Receives batches of events. */
+        private final Consumer<List<E>> handler;
+
+        /** Guards the buffer. */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** Signalled when events are added. */
+        private final Condition notEmpty = lock.newCondition();
+
+        /** Signalled when events are removed. */
+        private final Condition notFull = lock.newCondition();
+
+        /** Number of events discarded because the buffer was full. */
+        private final AtomicLong dropped = new AtomicLong();
+
+        /** Whether the subscription has been closed. */
+        private volatile boolean closed;
+
+        /** The thread delivering batches to the handler. */
+        private final Thread dispatcher;
+
+        /**
+         * Creates and starts a subscription.
+         *
+         * @param handler  receives batches of events
+         * @param capacity buffer size
+         * @param policy   overflow policy
+         * @param maxBatch largest batch size
+         * @param name     name for the dispatch thread
+         */
+        private Subscription(Consumer<List<E>> handler, int capacity, OverflowPolicy policy,
+                             int maxBatch, String name) {
+            this.ring = new Object[capacity];
+            this.policy = policy;
+            this.maxBatch = maxBatch;
+            this.handler = handler;
+            this.dispatcher = new Thread(this::dispatchLoop, name);
+            this.dispatcher.setDaemon(true);
+            this.dispatcher.start();
+        }
+
+        /**
+         * Returns how many events were discarded because this subscriber fell behind.
+         *
+         * @return the number of dropped events
+         */
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+
+        /**
+         * Stops delivery. Events still in the buffer are discarded.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Adds an event to the buffer according to the overflow policy.
+         *
+         * @param event the event to add
+         */
+        private void offer(E event) {
+            lock.lock();
+            try {
+                while (size == ring.length && !closed) {
+                    if (policy == OverflowPolicy.DROP_NEWEST) {
+                        dropped.incrementAndGet();
+                        return;
+                    }
+                    if (policy == OverflowPolicy.DROP_OLDEST) {
+                        ring[headIndex] = null;
+                        headIndex = (headIndex + 1) % ring.length;
+                        size--;
+                        dropped.incrementAndGet();
+                        break;
+                    }
+                    notFull.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                ring[(headIndex + size) % ring.length] = event;
+                size++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits for events and hands them to the handler in batches until closed.
+         */
+        @SuppressWarnings("unchecked")
+        private void dispatchLoop() {
+            ArrayList<E> batch = new ArrayList<>(maxBatch);
+            while (!closed) {
+                lock.lock();
+                try {
+                    while (size == 0 && !closed) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    while (size > 0 && batch.size() < maxBatch) {
+                        batch.add((E) ring[headIndex]);
+                        ring[headIndex] = null;
+                        headIndex = (headIndex + 1) % ring.length;
+                        size--;
+                    }
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                if (!batch.isEmpty() && !closed) {
+                    try {
+                        handler.accept(List.copyOf(batch));
+                    } catch (RuntimeException e) {
+                        // A failing subscriber must not stop its own delivery thread
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /** Name used for dispatch threads. */
+    private final String name;
+
+    /** Active subscriptions. */
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a stream with no subscribers.
+     *
+     * @param name a name used for the dispatch threads (cannot be null)
+     * @throws IllegalArgumentException if name is null
+     */
+    public ChangeStream(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name cannot be null");
+        }
+        this.name = name;
+    }
+
+    /**
+     * Subscribes with a 1024-event buffer that drops the oldest events when full,
+     * delivering up to 64 events per batch.
+     *
+     * @param handler receives batches of events (cannot be null)
+     * @return the subscription, to be closed when no longer needed
+     * @throws IllegalArgumentException if handler is null
+     */
+    public Subscription subscribe(Consumer<List<E>> handler) {
+        return subscribe(handler, 1024, OverflowPolicy.DROP_OLDEST, 64);
+    }
+
+    /**
+     * Subscribes with custom buffering.
+     *
+     * @param handler  receives batches of events on the subscription's own thread (cannot be null)
+     * @param capacity how many events to buffer (at least 1)
+     * @param policy   what to do when the buffer is full (cannot be null)
+     * @param maxBatch largest number of events per batch (at least 1)
+     * @return the subscription, to be closed when no longer needed
+     * @throws IllegalArgumentException if an argument is null or less than 1
+     */
+    public Subscription subscribe(Consumer<List<E>> handler, int capacity,
+                                  OverflowPolicy policy, int maxBatch) {
+        if (handler == null || policy == null) {
+            throw new IllegalArgumentException("Handler and policy cannot be null");
+        }
+        if (capacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be at least 1");
+        }
+        Subscription s = new Subscription(handler, capacity, policy, maxBatch,
+                name + "-subscriber-" + subscriptions.size());
+        subscriptions.add(s);
+        return s;
+    }
+
+    /**
+     * Publishes an event to every subscriber.
+     *
+     * @param event the event to publish (cannot be null)
+     * @throws IllegalArgumentException if event is null
+     */
+    public void publish(E event) {
+        if (event == null) {
+            throw new IllegalArgumentException("Event cannot be null");
+        }
+        for (Subscription s : subscriptions) {
+            s.offer(event);
+        }
+    }
+
+    /**
+     * Returns whether anyone is subscribed. Producers can use this to skip
+     * building events nobody will receive.
+     *
+     * @return true if there is at least one subscriber
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+}
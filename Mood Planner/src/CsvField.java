@@ -0,0 +1,82 @@
+/**
+ * Escapes text fields for the comma-separated files used by the planner.
+ *
+ * <p>Activity, archive and recurring-definition lines are split on every comma, so
+ * a field must never contain one. {@link #escape(String)} replaces a backslash with
+ * {@code \\}, a comma with {@code \c}, and line breaks with {@code \n} and
+ * {@code \r}; {@link #unescape(String)} reverses it. An escaped field therefore
+ * contains no commas or line breaks, and lines can still be split with
+ * {@code String.split(",")}. A backslash followed by any other character is kept
+ * as it is, so files written before escaping was added still read back unchanged
+ * unless they happen to contain one of those pairs.</p>
+ */
+public final class CsvField {
+
+    /** This class only has static methods. */
+    private CsvField() {
+    }
+
+    /**
+     * Escapes a field so it contains no commas or line breaks.
+     *
+     * @param field the raw text (may be null)
+     * @return the escaped text, or null if field is null
+     */
+    public static String escape(String field) {
+        if (field == null) {
+            return null;
+        }
+        int i = 0;
+        while (i < field.length() && "\\,\n\r".indexOf(field.charAt(i)) < 0) {
+            i++;
+        }
+        if (i == field.length()) {
+            return field;
+        }
+        StringBuilder sb = new StringBuilder(field.length() + 8).append(field, 0, i);
+        for (; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case ',' -> sb.append("\\c");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reverses {@link #escape(String)}.
+     *
+     * @param field the escaped text (may be null)
+     * @return the raw text, or null if field is null
+     */
+    public static String unescape(String field) {
+        if (field == null || field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder sb = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char next = field.charAt(i + 1);
+                String replacement = switch (next) {
+                    case '\\' -> "\\";
+                    case 'c' -> ",";
+                    case 'n' -> "\n";
+                    case 'r' -> "\r";
+                    default -> null;
+                };
+                if (replacement != null) {
+                    sb.append(replacement);
+                    i++;
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
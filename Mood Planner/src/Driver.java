@@ -1,5 +1,15 @@
 import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.Dialog;
+import java.awt.Frame;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The main application class for the Mood Planner system.
@@ -15,6 +25,31 @@ public class Driver {
     /** Manages all mood logging and retrieval operations. */
     private static MoodManager moodManager = new MoodManager();
 
+    /** Learns which effort levels the user completes in each mood. */
+    private static MoodEffortModel effortModel = new MoodEffortModel();
+
+    /** File the effort model is kept in between runs. */
+    private static final String EFFORT_MODEL_FILE = "effort_model.txt";
+
+    /** Pops up reminders the day before activities are due, one window for all that come due together. */
+    private static ReminderScheduler reminders = new ReminderScheduler(new ReminderSink() {
+        @Override
+        public void remind(Activity activity) {
+            remindAll(List.of(activity));
+        }
+
+        @Override
+        public void remindAll(List<Activity> activities) {
+            StringBuilder sb = new StringBuilder("Reminders:\n\n");
+            for (Activity a : activities) {
+                sb.append("\"").append(a.getTitle()).append("\" is due on ")
+                        .append(a.getDueDate()).append("\n");
+            }
+            String text = sb.toString();
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, text));
+        }
+    }, Duration.ofDays(1));
+
     /** Handles external service calls, such as fetching motivational quotes. */
     private static ExternalService externalService = new ExternalService();
 
@@ -25,6 +60,11 @@ public class Driver {
      * @param args command-line arguments (not used)
      */
     public static void main(String[] args) {
+        if (Files.exists(Path.of(EFFORT_MODEL_FILE))) {
+            effortModel.loadFromFile(EFFORT_MODEL_FILE);
+        }
+        reminders.attach(activityManager);
+        reminders.start();
 
         while (true) {
             String choice = JOptionPane.showInputDialog("""
@@ -38,7 +78,8 @@ public class Driver {
                     6. Save Activities
                     7. Load Activities
                     8. Motivational Quote (API)
-                    9. Exit
+                    9. Complete Activity
+                    10. Exit
                     
                     Enter option:
                     """);
@@ -56,7 +97,8 @@ public class Driver {
                 case "6" -> saveGUI();
                 case "7" -> loadGUI();
                 case "8" -> quoteGUI();
-                case "9" -> { return; }
+                case "9" -> completeGUI();
+                case "10" -> { return; }
                 default -> JOptionPane.showMessageDialog(null, "Invalid option.");
             }
         }
@@ -71,7 +113,8 @@ public class Driver {
 
         try {
             MoodType m = MoodType.fromUserInput(mood);
-            moodManager.logMood(m);
+            effortModel.recordMood(moodManager.logMood(m));
+            effortModel.saveToFile(EFFORT_MODEL_FILE);
             JOptionPane.showMessageDialog(null, "Mood logged: " + m);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Invalid mood.");
@@ -81,6 +124,8 @@ public class Driver {
     /**
      * Displays a dialog to add a new activity.
      * Collects activity details including name, description, and effort level.
+     * The activity can be made to repeat daily or weekly, in which case the due date
+     * is the first occurrence.
      */
     private static void addActivityGUI() {
         String title = JOptionPane.showInputDialog("Activity title:");
@@ -118,11 +163,33 @@ public class Driver {
         String type = JOptionPane.showInputDialog("Activity type (SCHOOL or PERSONAL):");
         if (type == null) return;
 
+        String course = null;
         if (type.equalsIgnoreCase("SCHOOL")) {
-            String course = JOptionPane.showInputDialog("Course name:");
+            course = JOptionPane.showInputDialog("Course name:");
             if (course == null || course.trim().isEmpty()) {
                 course = "Unknown";
             }
+        }
+
+        String repeat = JOptionPane.showInputDialog("Repeat (NONE / DAILY / WEEKLY):", "NONE");
+        if (repeat == null) return;
+
+        if (!repeat.trim().isEmpty() && !repeat.trim().equalsIgnoreCase("NONE")) {
+            try {
+                RecurringActivity.Frequency frequency =
+                        RecurringActivity.Frequency.valueOf(repeat.trim().toUpperCase());
+                String untilStr = JOptionPane.showInputDialog("Repeat until (YYYY-MM-DD, blank for no end):");
+                LocalDate until = untilStr == null || untilStr.isBlank() ? null : LocalDate.parse(untilStr.trim());
+                activityManager.addRecurringActivity(new RecurringActivity(
+                        title, desc, level, course, dueDate, frequency, 1, until));
+                JOptionPane.showMessageDialog(null, "Recurring activity added.");
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(null, "Invalid repeat option or end date.");
+            }
+            return;
+        }
+
+        if (course != null) {
             activityManager.addActivity(
                     new SchoolActivity(0, title, desc, level, dueDate, course)
             );
@@ -146,7 +213,7 @@ public class Driver {
 
         try {
             MoodType mood = MoodType.fromUserInput(moodText);
-            var list = activityManager.suggestActivitiesByMood(mood);
+            var list = activityManager.suggestActivitiesByMood(mood, effortModel);
 
             if (list.isEmpty()) {
                 JOptionPane.showMessageDialog(null, "No suggestions for this mood yet.");
@@ -172,12 +239,11 @@ public class Driver {
                             .append("\n");
                 }
 
-                // Add a motivational quote from the API
-                String quote = externalService.getMotivationalQuote();
-                sb.append("\nMotivational quote:\n")
-                        .append(quote);
-
-                JOptionPane.showMessageDialog(null, sb.toString());
+                // Add a quote suited to the mood, fetched off the event thread
+                runInBackground("Fetching a quote...",
+                        progress -> externalService.getMotivationalQuoteForMood(mood),
+                        quote -> JOptionPane.showMessageDialog(null,
+                                sb.append("\nMotivational quote:\n").append(quote).toString()));
             }
 
         } catch (Exception e) {
@@ -188,31 +254,88 @@ public class Driver {
     /**
      * Displays all activities in the system.
      * Shows a list of all activities with their details in a dialog.
+     * An activity that cannot be read is listed by ID instead of aborting the list.
      */
     private static void showAllGUI() {
         var all = activityManager.getAllActivities();
-        if (all.isEmpty()) {
+        var series = activityManager.getRecurringActivities();
+        if (all.isEmpty() && series.isEmpty()) {
             JOptionPane.showMessageDialog(null, "No activities.");
         } else {
             StringBuilder sb = new StringBuilder("All activities:\n\n");
             for (var a : all) {
                 String idFormatted = String.format("%02d", a.getId());
-                sb.append("Activity:    ID = ")
+                try {
+                    String line = "Activity:    ID = " + idFormatted +
+                            ", Title = " + a.getTitle() +
+                            ", Description = " + a.getDescription() +
+                            ", Effort = " + a.getEffortLevel() +
+                            ", Due Date = " + a.getDueDate() + "\n";
+                    sb.append(line);
+                } catch (RuntimeException e) {
+                    sb.append("Activity:    ID = ")
+                            .append(idFormatted)
+                            .append(" could not be read\n");
+                }
+            }
+            for (var r : series) {
+                Activity next = r.nextOccurrence(LocalDate.now());
+                String idFormatted = String.format("%02d", r.getId());
+                sb.append("Recurring:   ID = ")
                         .append(idFormatted)
                         .append(", Title = ")
-                        .append(a.getTitle())
+                        .append(r.getTitle())
                         .append(", Description = ")
-                        .append(a.getDescription())
+                        .append(r.getDescription())
                         .append(", Effort = ")
-                        .append(a.getEffortLevel())
-                        .append(", Due Date = ")
-                        .append(a.getDueDate())
+                        .append(r.getEffortLevel())
+                        .append(", Repeats = ")
+                        .append(r.toRRule())
+                        .append(", Next Due = ")
+                        .append(next != null ? next.getDueDate() : "none")
                         .append("\n");
             }
             JOptionPane.showMessageDialog(null, sb.toString());
         }
     }
 
+    /**
+     * Displays a dialog to mark an activity as completed.
+     * Completed activities are moved to the archive and no longer appear in suggestions,
+     * and the completion teaches the effort model what suits the current mood.
+     */
+    private static void completeGUI() {
+        String idText = JOptionPane.showInputDialog("Activity ID to complete:");
+        if (idText == null) return;
+
+        try {
+            int id = Integer.parseInt(idText.trim());
+            Activity activity = activityManager.getActivity(id);
+            RecurringActivity series = activity == null ? activityManager.getRecurringActivity(id) : null;
+            LevelMood effort = activity != null ? activity.getEffortLevel()
+                    : series != null ? series.getEffortLevel() : null;
+            if (effort == null) {
+                JOptionPane.showMessageDialog(null, "Activity not found.");
+                return;
+            }
+            if (series != null && series.nextOccurrence(LocalDate.now()) == null) {
+                JOptionPane.showMessageDialog(null, "This recurring activity has no occurrences left.");
+                return;
+            }
+            if (!activityManager.completeActivity(id)) {
+                JOptionPane.showMessageDialog(null,
+                        "Could not save the completed activity to the archive. It is still open.");
+                return;
+            }
+            if (effortModel.recordCompletion(effort, Instant.now())) {
+                effortModel.saveToFile(EFFORT_MODEL_FILE);
+            }
+            JOptionPane.showMessageDialog(null, "Activity completed.");
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(null, "Invalid ID.");
+        }
+    }
+
     /**
      * Displays the mood history.
      * Shows a list of all logged moods with their timestamps.
@@ -232,30 +355,119 @@ public class Driver {
 
     /**
      * Saves the current state of activities to a file.
-     * Prompts the user for a filename and handles any file I/O errors.
+     * The save runs in the background with a progress window that can cancel it.
      */
     private static void saveGUI() {
-        boolean ok = activityManager.saveActivitiesToFile("activities.txt");
-        JOptionPane.showMessageDialog(null, ok ? "Saved!" : "Error saving.");
+        runInBackground("Saving activities...",
+                progress -> activityManager.saveActivitiesToFile("activities.txt", progress),
+                ok -> JOptionPane.showMessageDialog(null, ok ? "Saved!" : "Error saving."));
     }
 
     /**
-     * Loads activities from a file.
-     * Prompts the user for a filename and handles any file I/O errors.
+     * Loads activities from a file, either fully or lazily.
+     * A full load runs in the background with a progress window that can cancel it;
+     * a lazy load only indexes the file and parses each activity when it is first used.
+     *
+     * @see ActivityManager#loadActivitiesLazily(String)
      */
     private static void loadGUI() {
-        boolean ok = activityManager.loadActivitiesFromFile("activities.txt");
-        JOptionPane.showMessageDialog(null, ok ? "Loaded!" : "Error loading.");
+        int lazy = JOptionPane.showConfirmDialog(null,
+                "Parse activities only when they are needed? (faster for large files)",
+                "Load Activities", JOptionPane.YES_NO_CANCEL_OPTION);
+        if (lazy == JOptionPane.YES_OPTION) {
+            boolean ok = activityManager.loadActivitiesLazily("activities.txt");
+            JOptionPane.showMessageDialog(null, ok ? "Loaded!" : "Error loading.");
+        } else if (lazy == JOptionPane.NO_OPTION) {
+            runInBackground("Loading activities...",
+                    progress -> activityManager.loadActivitiesFromFile("activities.txt", progress),
+                    ok -> JOptionPane.showMessageDialog(null, ok ? "Loaded!" : "Error loading."));
+        }
     }
 
     /**
      * Fetches and displays a random motivational quote using the external service.
-     * The quote is retrieved from an external API and displayed in a dialog box.
-     * Handles any potential network or service errors by showing a friendly message.
+     * The quote is retrieved from an external API in the background and displayed in a
+     * dialog box when it arrives. Handles any potential network or service errors by
+     * showing a friendly message.
      * 
      * @see ExternalService#getMotivationalQuote()
      */
     private static void quoteGUI() {
-        JOptionPane.showMessageDialog(null, externalService.getMotivationalQuote());
+        runInBackground("Fetching a quote...",
+                progress -> externalService.getMotivationalQuote(),
+                quote -> JOptionPane.showMessageDialog(null, quote));
+    }
+
+    /**
+     * Runs slow work on a background thread while showing a small modal progress window
+     * with a Cancel button. The window closes when the work finishes or is cancelled,
+     * and the result is passed to {@code onSuccess} on the event thread.
+     *
+     * <p>This method returns only after the work has finished or been cancelled and
+     * {@code onSuccess} has returned, so the menu is not reopened on top of the
+     * progress window.</p>
+     *
+     * @param message   text shown above the progress bar
+     * @param work      the work to run
+     * @param onSuccess called with the result if the work completes
+     * @param <T>       the type of result produced by the work
+     */
+    private static <T> void runInBackground(String message, BackgroundTask.Work<T> work,
+                                            Consumer<T> onSuccess) {
+        Runnable show = () -> {
+            JDialog dialog = new JDialog((Frame) null, "Mood Planner", Dialog.ModalityType.APPLICATION_MODAL);
+            BackgroundTask<T> task = new BackgroundTask<>(work,
+                    result -> {
+                        dialog.dispose();
+                        onSuccess.accept(result);
+                    },
+                    e -> {
+                        dialog.dispose();
+                        JOptionPane.showMessageDialog(null, "Error: " + e.getMessage());
+                    });
+
+            JProgressBar bar = new JProgressBar(0, 100);
+            bar.setIndeterminate(true);
+            JButton cancel = new JButton("Cancel");
+            cancel.addActionListener(e -> task.cancel(true));
+
+            JPanel panel = new JPanel(new BorderLayout(8, 8));
+            panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            panel.add(new JLabel(message), BorderLayout.NORTH);
+            panel.add(bar, BorderLayout.CENTER);
+            panel.add(cancel, BorderLayout.SOUTH);
+
+            dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+            dialog.setContentPane(panel);
+            dialog.pack();
+            dialog.setLocationRelativeTo(null);
+
+            task.addPropertyChangeListener(evt -> {
+                if ("progress".equals(evt.getPropertyName())) {
+                    bar.setIndeterminate(false);
+                    bar.setValue((Integer) evt.getNewValue());
+                } else if ("state".equals(evt.getPropertyName())
+                        && evt.getNewValue() == SwingWorker.StateValue.DONE) {
+                    dialog.dispose();
+                }
+            });
+
+            // The task's completion is delivered on this thread, so it cannot
+            // finish before the modal window starts handling events
+            task.execute();
+            dialog.setVisible(true);
+        };
+
+        if (SwingUtilities.isEventDispatchThread()) {
+            show.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(show);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            JOptionPane.showMessageDialog(null, "Error: " + e.getCause().getMessage());
+        }
     }
 }
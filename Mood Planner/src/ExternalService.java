@@ -2,6 +2,11 @@ import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides access to external web services, primarily for fetching motivational quotes.
@@ -12,33 +17,107 @@ import java.net.URL;
  * and includes a local fallback mechanism. It demonstrates proper error handling and
  * network request management in Java.</p>
  *
+ * <p>Mood-specific quotes come from a local {@link QuoteCorpus} loaded once from the
+ * {@code quotes.txt} resource, or from built-in quotes if the resource is missing, so
+ * they need no network round trip. Each mood-specific request also starts a
+ * background fetch from the API, at most one at a time, and a quote it returns is
+ * merged into that mood's quotes only, so the corpus grows without the caller
+ * waiting on the network.</p>
+ *
  * <p>This class is thread-safe and can be used across multiple threads.</p>
  *
  * @see MoodType
+ * @see QuoteCorpus
  */
 public class ExternalService {
 
+    /** Weight given to quotes merged in from the API, relative to the bundled ones. */
+    private static final double NETWORK_QUOTE_WEIGHT = 1.0;
+
+    /**
+     * The quote returned when the API cannot be reached or its response cannot be parsed.
+     * Callers that need to tell a real quote from the fallback, such as load tests,
+     * can compare against this.
+     */
+    public static final String FALLBACK_QUOTE = "Stay positive and keep moving! — Offline mode";
+
+    /** Runs the background fetches that merge API quotes into the corpus. */
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quote-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** The public quote endpoint used by default. */
+    public static final String DEFAULT_API_URL = "https://zenquotes.io/api/random";
+
+    /** Local mood-tagged quotes, stored with their mood header already applied. */
+    private final QuoteCorpus corpus = QuoteCorpus.fromResource("quotes.txt", ExternalService::decorate);
+
+    /** The endpoint quotes are fetched from. */
+    private final String apiUrl;
+
+    /** Whether a background fetch for this service is queued or running. */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /** Quotes from the API that were new to the corpus and merged into it. */
+    private final AtomicLong mergedQuotes = new AtomicLong();
+
+    /** API requests that failed and fell back to {@link #FALLBACK_QUOTE}. */
+    private final AtomicLong failedFetches = new AtomicLong();
+
+    /**
+     * Creates a service that fetches quotes from ZenQuotes.
+     */
+    public ExternalService() {
+        this(DEFAULT_API_URL);
+    }
+
+    /**
+     * Creates a service that fetches quotes from another endpoint with the same
+     * response format, such as a local stub for load testing.
+     *
+     * @param apiUrl the quote endpoint (cannot be null or empty)
+     * @throws IllegalArgumentException if apiUrl is null or empty
+     */
+    public ExternalService(String apiUrl) {
+        if (apiUrl == null || apiUrl.isEmpty()) {
+            throw new IllegalArgumentException("API URL cannot be empty");
+        }
+        this.apiUrl = apiUrl;
+    }
+
     /**
      * Fetches a random motivational quote from the ZenQuotes API.
      * This method performs a synchronous HTTP GET request to the external API.
      *
      * <p><b>Implementation Details:</b></p>
      * <ul>
-     *   <li>Makes a request to "https://zenquotes.io/api/random"</li>
+     *   <li>Makes a request to "https://zenquotes.io/api/random", or the configured endpoint</li>
      *   <li>Sets a connection timeout of 5 seconds</li>
      *   <li>Parses the JSON response to extract quote and author</li>
-     *   <li>Returns a fallback quote if any error occurs</li>
+     *   <li>Returns {@link #FALLBACK_QUOTE} if any error occurs</li>
      * </ul>
      *
+     * <p>The quote is not tied to a mood, so it is not merged into the corpus.</p>
+     *
      * @return a formatted string containing the quote and author in the format:
      *         "Quote text — Author"
      * @throws RuntimeException if there's an error processing the API response
      *         (note: most errors are caught and result in a fallback quote)
      */
     public String getMotivationalQuote() {
+        return fetchQuote(null);
+    }
 
-        String apiUrl = "https://zenquotes.io/api/random";
-
+    /**
+     * Fetches a quote from the API and, if a mood is given and the fetch succeeds,
+     * merges it into the corpus for that mood only.
+     *
+     * @param mood the mood the quote was requested for, or null to leave the corpus unchanged
+     * @return the quote and author, or a fallback quote if the request fails
+     */
+    private String fetchQuote(MoodType mood) {
         try {
             URL url = new URL(apiUrl);
             HttpURLConnection conn = (HttpURLConnection) url.openConnection();
@@ -64,21 +143,50 @@ public class ExternalService {
             String quote = json.split("\"q\":\"")[1].split("\",")[0];
             String author = json.split("\"a\":\"")[1].split("\"")[0];
 
-            return quote + " — " + author;
+            String result = quote + " — " + author;
+            if (mood != null && corpus.add(mood, result, NETWORK_QUOTE_WEIGHT)) {
+                mergedQuotes.incrementAndGet();
+            }
+            return result;
 
         } catch (Exception e) {
             // Fallback if the API is not available
-            return "Stay positive and keep moving! — Offline mode";
+            failedFetches.incrementAndGet();
+            return FALLBACK_QUOTE;
         }
     }
 
+    /**
+     * Returns how many quotes fetched from the API were new and merged into the
+     * corpus. Quotes the corpus already had for the mood are not counted.
+     *
+     * @return the number of merged quotes
+     */
+    public long getMergedQuoteCount() {
+        return mergedQuotes.get();
+    }
+
+    /**
+     * Returns how many API requests have failed, including background fetches,
+     * whose failures are otherwise invisible to callers.
+     *
+     * @return the number of failed requests
+     */
+    public long getFailedFetchCount() {
+        return failedFetches.get();
+    }
+
     /**
      * Retrieves a motivational quote tailored to the user's current mood.
-     * This method wraps the quote with a mood-appropriate header to provide
-     * more contextual motivation.
+     * The quote is picked from the local corpus, weighted by how well it suits the
+     * mood, and is wrapped with a mood-appropriate header to provide more
+     * contextual motivation. The caller never waits on the network: a background
+     * fetch is started instead (unless one is already running), and the quote it
+     * returns is merged into the corpus for this mood only, ready for later picks.
+     * Only if the corpus has no quotes for the mood is the API called directly.
      *
-     * <p>If the provided mood is null, the base quote is returned without
-     * any additional decoration.</p>
+     * <p>If the provided mood is null, a quote from {@link #getMotivationalQuote()}
+     * is returned without any additional decoration.</p>
      *
      * <p><b>Mood-specific decorations:</b></p>
      * <ul>
@@ -93,16 +201,53 @@ public class ExternalService {
      * @see MoodType
      */
     public String getMotivationalQuoteForMood(MoodType mood) {
-        String baseQuote = getMotivationalQuote();
-
         if (mood == null) {
-            return baseQuote;
+            return getMotivationalQuote();
         }
 
+        String quote = corpus.pick(mood);
+        if (quote == null) {
+            return decorate(mood, fetchQuote(mood));
+        }
+        refreshAsync(mood);
+        return quote;
+    }
+
+    /**
+     * Starts a background fetch that merges a new quote into the corpus for a mood,
+     * unless one is already queued or running.
+     *
+     * @param mood the mood to merge the quote into
+     */
+    private void refreshAsync(MoodType mood) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            REFRESHER.execute(() -> {
+                try {
+                    fetchQuote(mood);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Adds the mood-specific header to a quote.
+     *
+     * @param mood  the mood
+     * @param quote the quote text
+     * @return the header followed by the quote
+     */
+    private static String decorate(MoodType mood, String quote) {
         return switch (mood) {
-            case TIRED -> "Gentle encouragement for when you're TIRED:\n\n" + baseQuote;
-            case NEUTRAL -> "A little boost for your NEUTRAL day:\n\n" + baseQuote;
-            case ENERGETIC -> "Fuel for your ENERGETIC mood:\n\n" + baseQuote;
+            case TIRED -> "Gentle encouragement for when you're TIRED:\n\n" + quote;
+            case NEUTRAL -> "A little boost for your NEUTRAL day:\n\n" + quote;
+            case ENERGETIC -> "Fuel for your ENERGETIC mood:\n\n" + quote;
         };
     }
 }
@@ -0,0 +1,495 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An activities file that is indexed up front but parsed on demand.
+ *
+ * <p>Opening the file reads its raw bytes in one go and makes one quick pass over
+ * them, recording where each line starts plus its ID, effort level and due date.
+ * No strings or activity objects are built during that pass. Each line is
+ * represented by a small {@link LazyActivity}; the real {@link SchoolActivity} or
+ * {@link PersonalActivity} is only parsed when its title, description, type,
+ * course or completion status is read. The raw bytes are released once every
+ * line has been parsed.</p>
+ *
+ * <p>The file is read in the same format as
+ * {@link ActivityManager#loadActivitiesFromFile(String)} and must be smaller than 2 GB.
+ * Every field is checked during the index pass, so a line that is indexed always
+ * parses later. Lines with an invalid ID, title, effort level or due date, and
+ * invalid recurring definitions, are skipped and reported on standard error, as
+ * the eager loader does. The file is closed as soon as it has been read and no mapping or handle is kept,
+ * so saving over a lazily loaded file with
+ * {@link ActivityManager#saveActivitiesToFile(String)} is safe on every platform.</p>
+ *
+ * @see ActivityManager#loadActivitiesLazily(String)
+ */
+public class LazyActivityFile {
+
+    /** Cached effort levels, indexed by ordinal. */
+    private static final LevelMood[] LEVELS = LevelMood.values();
+
+    /** Marks a line without a due date, which gets today's date when it is parsed. */
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /** The raw file contents, or null once every line has been parsed. Guarded by this. */
+    private byte[] data;
+
+    /** Byte offset where each indexed line starts. */
+    private int[] starts = new int[64];
+
+    /** Byte length of each indexed line, without the line ending. */
+    private int[] lengths = new int[64];
+
+    /** ID of each indexed line. */
+    private int[] ids = new int[64];
+
+    /** Effort level ordinal of each indexed line. */
+    private byte[] efforts = new byte[64];
+
+    /** Due date of each indexed line as {@link LocalDate#toEpochDay()}, or {@link #NO_DATE}. */
+    private int[] dueDays = new int[64];
+
+    /** Number of indexed lines. */
+    private int count;
+
+    /** Number of lines that have been fully parsed. */
+    private int materialized;
+
+    /** Number of lines skipped because they could not be indexed. */
+    private int skipped;
+
+    /** Recurring definitions in the file, parsed during indexing as there are few of them. */
+    private final ArrayList<RecurringActivity> recurring = new ArrayList<>();
+
+    /** The one handle for each line, or null until first requested. Guarded by this. */
+    private LazyActivity[] handles;
+
+    /**
+     * Indexes the contents of a file.
+     *
+     * @param path the file the contents came from, for warnings
+     * @param data the raw file contents
+     */
+    private LazyActivityFile(Path path, byte[] data) {
+        this.data = data;
+        buildIndex(path);
+    }
+
+    /**
+     * Opens and indexes an activities file.
+     *
+     * @param filename the name of the file to open
+     * @return the indexed file
+     * @throws IOException if the file cannot be read or is too large
+     */
+    public static LazyActivityFile open(String filename) throws IOException {
+        Path path = Path.of(filename);
+        if (Files.size(path) > Integer.MAX_VALUE - 8) {
+            throw new IOException(filename + " is too large to load lazily");
+        }
+        return new LazyActivityFile(path, Files.readAllBytes(path));
+    }
+
+    /**
+     * Returns the number of activities in the file.
+     *
+     * @return the activity count
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns how many activities have been fully parsed so far.
+     *
+     * @return the number of parsed activities
+     */
+    public synchronized int getMaterializedCount() {
+        return materialized;
+    }
+
+    /**
+     * Returns how many lines were skipped because they could not be indexed.
+     *
+     * @return the number of skipped lines
+     */
+    public int getSkippedLineCount() {
+        return skipped;
+    }
+
+    /**
+     * Returns the recurring activity definitions in the file, in file order.
+     *
+     * @return a new list of definitions
+     */
+    public ArrayList<RecurringActivity> getRecurringActivities() {
+        return new ArrayList<>(recurring);
+    }
+
+    /**
+     * Returns one unparsed handle per activity in the file, in file order.
+     * Every call returns the same handles, so each line is parsed at most once.
+     *
+     * @return a new list of lazy activities
+     */
+    public synchronized ArrayList<Activity> getActivities() {
+        if (handles == null) {
+            handles = new LazyActivity[count];
+            for (int row = 0; row < count; row++) {
+                handles[row] = new LazyActivity(row);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(handles));
+    }
+
+    /**
+     * Scans the raw bytes once, recording the position, ID, effort and due date of
+     * each line. Recurring definition lines are parsed straight away instead of being
+     * indexed. Blank lines are ignored; lines with fewer than five fields, an invalid
+     * ID, title, effort level or due date, and invalid recurring definitions are
+     * skipped and reported.
+     *
+     * @param path the file being indexed, for warnings
+     */
+    private void buildIndex(Path path) {
+        int limit = data.length;
+        int lineStart = 0;
+        int lineNumber = 0;
+        int[] commas = new int[6];
+
+        while (lineStart < limit) {
+            lineNumber++;
+            int end = lineStart;
+            int commaCount = 0;
+            byte b;
+            while (end < limit && (b = data[end]) != '\n') {
+                if (b == ',') {
+                    if (commaCount < commas.length) {
+                        commas[commaCount] = end;
+                    }
+                    commaCount++;
+                }
+                end++;
+            }
+            int lineEnd = end > lineStart && data[end - 1] == '\r' ? end - 1 : end;
+
+            boolean valid = true;
+            if (lineEnd - lineStart > 1 && data[lineStart] == 'R' && data[lineStart + 1] == ',') {
+                String line = new String(data, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                try {
+                    recurring.add(RecurringActivity.fromLine(line));
+                } catch (RuntimeException e) {
+                    valid = false;
+                }
+            } else if (commaCount >= 4 && hasValue(commas[3] + 1, lineEnd)) {
+                try {
+                    int id = parseId(lineStart, commas[0], lineNumber);
+                    if (!hasText(commas[0] + 1, commas[1])) {
+                        throw new IOException("Empty title on line " + lineNumber);
+                    }
+                    byte effort = parseEffort(commas[2] + 1, commas[3], lineNumber);
+                    int dueDay = NO_DATE;
+                    if (commaCount >= 5) {
+                        int dateEnd = commaCount >= 6 ? commas[5] : lineEnd;
+                        if (commas[4] + 1 < dateEnd) {
+                            dueDay = parseDate(commas[4] + 1, dateEnd, lineNumber);
+                        }
+                    }
+                    add(lineStart, lineEnd - lineStart, id, effort, dueDay);
+                } catch (IOException e) {
+                    valid = false;
+                }
+            } else {
+                valid = isBlank(lineStart, lineEnd);
+            }
+            if (!valid) {
+                skipped++;
+                System.err.println("Warning: skipped malformed line " + lineNumber + " of " + path);
+            }
+            lineStart = end + 1;
+        }
+    }
+
+    /**
+     * Returns whether a range of bytes holds only spaces and tabs.
+     *
+     * @param start first byte
+     * @param end   byte after the range
+     * @return true if the range is blank
+     */
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] != ' ' && data[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether an escaped field has any text left after trimming, as a title must.
+     *
+     * @param start first byte of the field
+     * @param end   byte after the field
+     * @return true if the field has a character other than white space
+     */
+    private boolean hasText(int start, int end) {
+        for (int i = start; i < end; i++) {
+            int b = data[i] & 0xFF;
+            if (b == '\\' && i + 1 < end && (data[i + 1] == 'n' || data[i + 1] == 'r')) {
+                // An escaped line break is white space
+                i++;
+            } else if (b > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses an ISO due date (yyyy-MM-dd) from the raw bytes. Dates in the usual
+     * ten-character form are read without creating a string.
+     *
+     * @param start      first byte of the field
+     * @param end        byte after the field
+     * @param lineNumber line number for error messages
+     * @return the date as {@link LocalDate#toEpochDay()}
+     * @throws IOException if the field is not a valid date
+     */
+    private int parseDate(int start, int end, int lineNumber) throws IOException {
+        try {
+            if (end - start == 10 && data[start + 4] == '-' && data[start + 7] == '-') {
+                int year = digits(start, 4);
+                int month = digits(start + 5, 2);
+                int day = digits(start + 8, 2);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return (int) LocalDate.of(year, month, day).toEpochDay();
+                }
+            }
+            String text = new String(data, start, end - start, StandardCharsets.US_ASCII);
+            return Math.toIntExact(LocalDate.parse(text).toEpochDay());
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IOException("Invalid due date on line " + lineNumber);
+        }
+    }
+
+    /**
+     * Reads a fixed number of decimal digits from the raw bytes.
+     *
+     * @param start first byte
+     * @param n     number of digits
+     * @return the value, or -1 if a byte is not a digit
+     */
+    private int digits(int start, int n) {
+        int value = 0;
+        for (int i = start; i < start + n; i++) {
+            int d = data[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether the bytes from start up to the next comma or end contain anything.
+     *
+     * @param start first byte
+     * @param end   end of the line
+     * @return true if the field is not empty
+     */
+    private boolean hasValue(int start, int end) {
+        return start < end && data[start] != ',';
+    }
+
+    /**
+     * Parses a decimal ID from the raw bytes.
+     *
+     * @param start      first byte of the field
+     * @param end        byte after the field
+     * @param lineNumber line number for error messages
+     * @return the ID
+     * @throws IOException if the field is not a valid int
+     */
+    private int parseId(int start, int end, int lineNumber) throws IOException {
+        try {
+            return Integer.parseInt(new String(data, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid ID on line " + lineNumber);
+        }
+    }
+
+    /**
+     * Parses an effort level name from the raw bytes without creating a string.
+     *
+     * @param start      first byte of the field
+     * @param end        byte after the field
+     * @param lineNumber line number for error messages
+     * @return the effort level ordinal
+     * @throws IOException if the field is not LOW, MEDIUM or HIGH
+     */
+    private byte parseEffort(int start, int end, int lineNumber) throws IOException {
+        for (LevelMood level : LEVELS) {
+            String name = level.name();
+            if (end - start == name.length()) {
+                int i = 0;
+                while (i < name.length() && data[start + i] == name.charAt(i)) {
+                    i++;
+                }
+                if (i == name.length()) {
+                    return (byte) level.ordinal();
+                }
+            }
+        }
+        throw new IOException("Invalid effort level on line " + lineNumber);
+    }
+
+    /**
+     * Appends an entry to the index.
+     *
+     * @param start  line start offset
+     * @param length line length
+     * @param id     activity ID
+     * @param effort effort ordinal
+     * @param dueDay due date as an epoch day, or {@link #NO_DATE}
+     */
+    private void add(int start, int length, int id, byte effort, int dueDay) {
+        if (count == starts.length) {
+            int capacity = count * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            efforts = Arrays.copyOf(efforts, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+        }
+        starts[count] = start;
+        lengths[count] = length;
+        ids[count] = id;
+        efforts[count] = effort;
+        dueDays[count] = dueDay;
+        count++;
+    }
+
+    /**
+     * Parses one indexed line into a full activity. Each row has a single handle,
+     * which parses it at most once, so when every row has been parsed the raw
+     * bytes are dropped.
+     *
+     * @param row the row to parse
+     * @return the parsed activity
+     */
+    private Activity parse(int row) {
+        String line;
+        synchronized (this) {
+            line = new String(data, starts[row], lengths[row], StandardCharsets.UTF_8);
+        }
+        Activity activity = ActivityManager.parseLine(line);
+        synchronized (this) {
+            if (++materialized == count) {
+                data = null;
+            }
+        }
+        return activity;
+    }
+
+    /**
+     * An activity that answers ID, effort level and due date from the index and
+     * parses the rest of its line the first time any other field is needed.
+     */
+    public final class LazyActivity extends Activity {
+
+        /** The indexed row this activity comes from. */
+        private final int row;
+
+        /** The parsed activity, or null until first needed. */
+        private Activity parsed;
+
+        /**
+         * Creates a handle for a row. The fields inherited from Activity are unused,
+         * so they are left unset rather than validated and interned.
+         *
+         * @param row the row index
+         */
+        private LazyActivity(int row) {
+            super();
+            this.row = row;
+        }
+
+        /**
+         * Returns the fully parsed activity, parsing it on first use.
+         *
+         * @return the parsed activity
+         * @throws UncheckedIOException if the line turns out to be invalid
+         */
+        public synchronized Activity materialize() {
+            if (parsed == null) {
+                try {
+                    parsed = parse(row);
+                } catch (RuntimeException e) {
+                    throw new UncheckedIOException(new IOException(
+                            "Invalid activity with ID " + ids[row], e));
+                }
+                parsed.setId(ids[row]);
+            }
+            return parsed;
+        }
+
+        @Override
+        public int getId() {
+            synchronized (this) {
+                return parsed != null ? parsed.getId() : ids[row];
+            }
+        }
+
+        @Override
+        public synchronized void setId(int id) {
+            checkNotPublished();
+            if (parsed != null) {
+                parsed.setId(id);
+            }
+            ids[row] = id;
+        }
+
+        @Override
+        public LevelMood getEffortLevel() { return LEVELS[efforts[row]]; }
+
+        @Override
+        public String getTitle() { return materialize().getTitle(); }
+
+        @Override
+        public String getDescription() { return materialize().getDescription(); }
+
+        @Override
+        public LocalDate getDueDate() {
+            synchronized (this) {
+                if (parsed != null || dueDays[row] == NO_DATE) {
+                    return materialize().getDueDate();
+                }
+            }
+            return LocalDate.ofEpochDay(dueDays[row]);
+        }
+
+        @Override
+        public boolean isCompleted() { return materialize().isCompleted(); }
+
+        @Override
+        public void setCompleted(boolean completed) {
+            checkNotPublished();
+            materialize().setCompleted(completed);
+        }
+
+        @Override
+        public String getTypeLabel() { return materialize().getTypeLabel(); }
+
+        @Override
+        public String toString() { return materialize().toString(); }
+    }
+}
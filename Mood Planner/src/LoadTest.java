@@ -0,0 +1,657 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates a synthetic multi-user workload against the planner's core classes
+ * and reports throughput and latency percentiles.
+ *
+ * <p>Each simulated user runs on its own thread with its own {@link MoodManager}
+ * (mood history is per user). Users share one {@link ExternalService}, and either
+ * share one {@link ActivityManager} or get one each. In registry mode each user
+ * instead works through a {@link PlannerRegistry}, as a server would, with few
+ * enough planners kept in memory that users are spilled to disk and reloaded
+ * during the run. The quote API is replaced by a local HTTP stub with a
+ * configurable delay, so no real network is used. A quote call that returns the
+ * service's fallback quote counts as an error. Mood quotes are served from the
+ * service's corpus while stub quotes are merged in by background fetches, so the
+ * report also shows how many quotes were merged and how many fetches failed; a
+ * failing stub cannot go unnoticed either way.</p>
+ *
+ * <p>Every user issues operations at a fixed rate chosen from the configured
+ * activity rate, mood rate, completion ratio and read/write mix. Latency is
+ * measured from when an operation was scheduled, not when it started, so a
+ * stalled system shows up as queueing delay instead of being hidden by the
+ * users slowing down.</p>
+ *
+ * <p>Run with {@code java LoadTest [key=value ...]}. Keys and defaults:</p>
+ * <ul>
+ *   <li>{@code users=16} — number of simulated users</li>
+ *   <li>{@code seconds=10} — measured duration</li>
+ *   <li>{@code warmup=2} — seconds run before measuring</li>
+ *   <li>{@code activityRate=2} — activities added per user per second</li>
+ *   <li>{@code moodRate=0.5} — moods logged per user per second</li>
+ *   <li>{@code completeRatio=0.5} — fraction of added activities that are later completed</li>
+ *   <li>{@code readsPerWrite=4} — reads issued for every write</li>
+ *   <li>{@code apiQuoteShare=0.05} — fraction of reads that fetch a quote from the stub API</li>
+ *   <li>{@code quoteDelayMs=20} — delay added by the stub API</li>
+ *   <li>{@code sharedActivities=true} — whether users share one activity manager</li>
+ *   <li>{@code registry=false} — whether users work through a planner registry instead</li>
+ *   <li>{@code registryShards=2} — shards in the registry</li>
+ *   <li>{@code usersPerShard=4} — planners kept in memory per shard before spilling</li>
+ *   <li>{@code seed=42} — random seed</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    /**
+     * The operations a simulated user can perform.
+     */
+    enum Op {
+        /** Add a school or personal activity. */
+        ADD_ACTIVITY,
+        /** Complete one of the user's open activities. */
+        COMPLETE,
+        /** Log a mood. */
+        LOG_MOOD,
+        /** Suggest activities for the user's last mood. */
+        SUGGEST,
+        /** Query high-effort activities due in the next week. */
+        QUERY,
+        /** Pick a mood quote from the local corpus. */
+        MOOD_QUOTE,
+        /** Fetch a quote from the stub API. */
+        API_QUOTE
+    }
+
+    /**
+     * Workload settings.
+     *
+     * @param users            number of simulated users
+     * @param seconds          measured duration
+     * @param warmup           seconds run before measuring
+     * @param activityRate     activities added per user per second
+     * @param moodRate         moods logged per user per second
+     * @param completeRatio    fraction of added activities that are completed
+     * @param readsPerWrite    reads issued for every write
+     * @param apiQuoteShare    fraction of reads that call the stub API
+     * @param quoteDelayMs     delay added by the stub API
+     * @param sharedActivities whether users share one activity manager
+     * @param registry         whether users work through a planner registry
+     * @param registryShards   shards in the registry
+     * @param usersPerShard    planners kept in memory per shard
+     * @param seed             random seed
+     */
+    record Config(int users, double seconds, double warmup, double activityRate, double moodRate,
+                  double completeRatio, double readsPerWrite, double apiQuoteShare, int quoteDelayMs,
+                  boolean sharedActivities, boolean registry, int registryShards, int usersPerShard,
+                  long seed) {
+
+        /**
+         * Parses key=value arguments over the defaults.
+         *
+         * @param args the command-line arguments
+         * @return the settings
+         * @throws IllegalArgumentException if an argument is malformed or out of range
+         */
+        static Config parse(String[] args) {
+            Map<String, String> v = new LinkedHashMap<>();
+            v.put("users", "16");
+            v.put("seconds", "10");
+            v.put("warmup", "2");
+            v.put("activityRate", "2");
+            v.put("moodRate", "0.5");
+            v.put("completeRatio", "0.5");
+            v.put("readsPerWrite", "4");
+            v.put("apiQuoteShare", "0.05");
+            v.put("quoteDelayMs", "20");
+            v.put("sharedActivities", "true");
+            v.put("registry", "false");
+            v.put("registryShards", "2");
+            v.put("usersPerShard", "4");
+            v.put("seed", "42");
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq < 0 || !v.containsKey(arg.substring(0, eq))) {
+                    throw new IllegalArgumentException("Unknown argument: " + arg + " (expected one of " + v.keySet() + ")");
+                }
+                v.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+
+            Config c = new Config(Integer.parseInt(v.get("users")),
+                    Double.parseDouble(v.get("seconds")),
+                    Double.parseDouble(v.get("warmup")),
+                    Double.parseDouble(v.get("activityRate")),
+                    Double.parseDouble(v.get("moodRate")),
+                    Double.parseDouble(v.get("completeRatio")),
+                    Double.parseDouble(v.get("readsPerWrite")),
+                    Double.parseDouble(v.get("apiQuoteShare")),
+                    Integer.parseInt(v.get("quoteDelayMs")),
+                    Boolean.parseBoolean(v.get("sharedActivities")),
+                    Boolean.parseBoolean(v.get("registry")),
+                    Integer.parseInt(v.get("registryShards")),
+                    Integer.parseInt(v.get("usersPerShard")),
+                    Long.parseLong(v.get("seed")));
+            if (c.users < 1 || c.seconds <= 0 || c.warmup < 0 || c.activityRate < 0 || c.moodRate < 0
+                    || c.completeRatio < 0 || c.completeRatio > 1 || c.readsPerWrite < 0
+                    || c.apiQuoteShare < 0 || c.apiQuoteShare > 1 || c.quoteDelayMs < 0
+                    || c.registryShards < 1 || c.usersPerShard < 1) {
+                throw new IllegalArgumentException("Settings out of range: " + c);
+            }
+            if (c.writesPerSecond() <= 0) {
+                throw new IllegalArgumentException("activityRate or moodRate must be positive");
+            }
+            return c;
+        }
+
+        /**
+         * Returns the writes each user issues per second.
+         *
+         * @return adds, completions and mood logs per second
+         */
+        double writesPerSecond() {
+            return activityRate * (1 + completeRatio) + moodRate;
+        }
+
+        /**
+         * Returns the relative weight of each operation in one user's mix.
+         *
+         * @return weights indexed by {@link Op#ordinal()}
+         */
+        double[] weights() {
+            double reads = writesPerSecond() * readsPerWrite;
+            double localReads = reads * (1 - apiQuoteShare);
+            double[] w = new double[Op.values().length];
+            w[Op.ADD_ACTIVITY.ordinal()] = activityRate;
+            w[Op.COMPLETE.ordinal()] = activityRate * completeRatio;
+            w[Op.LOG_MOOD.ordinal()] = moodRate;
+            w[Op.SUGGEST.ordinal()] = localReads / 3;
+            w[Op.QUERY.ordinal()] = localReads / 3;
+            w[Op.MOOD_QUOTE.ordinal()] = localReads / 3;
+            w[Op.API_QUOTE.ordinal()] = reads * apiQuoteShare;
+            return w;
+        }
+    }
+
+    /**
+     * The planner operations a simulated user performs, either directly against
+     * the managers or through a {@link PlannerRegistry}.
+     */
+    interface Planner {
+
+        /**
+         * Adds an activity.
+         *
+         * @param activity the new activity
+         * @return the ID it was given
+         */
+        int add(Activity activity);
+
+        /**
+         * Completes an activity.
+         *
+         * @param activityId the activity's ID
+         */
+        void complete(int activityId);
+
+        /**
+         * Logs a mood.
+         *
+         * @param mood the mood
+         * @return the logged mood
+         */
+        MoodType logMood(MoodType mood);
+
+        /**
+         * Suggests activities for a mood.
+         *
+         * @param mood the mood
+         */
+        void suggest(MoodType mood);
+
+        /**
+         * Runs a query over the open activities.
+         *
+         * @param query the query
+         */
+        void query(ActivityQuery query);
+    }
+
+    /**
+     * Works directly against an activity manager and a mood manager.
+     *
+     * @param manager the activity manager, possibly shared with other users
+     * @param moods   this user's mood manager
+     */
+    private record DirectPlanner(ActivityManager manager, MoodManager moods) implements Planner {
+
+        @Override
+        public int add(Activity activity) {
+            manager.addActivity(activity);
+            return activity.getId();
+        }
+
+        @Override
+        public void complete(int activityId) {
+            manager.completeActivity(activityId);
+        }
+
+        @Override
+        public MoodType logMood(MoodType mood) {
+            return moods.logMood(mood).getMoodType();
+        }
+
+        @Override
+        public void suggest(MoodType mood) {
+            manager.suggestActivitiesByMood(mood);
+        }
+
+        @Override
+        public void query(ActivityQuery query) {
+            manager.query(query);
+        }
+    }
+
+    /**
+     * Works through a user's planner in a registry, so every operation may open
+     * the planner from disk and spill another user's.
+     *
+     * @param registry the shared registry
+     * @param userId   this user's ID
+     */
+    private record RegistryPlanner(PlannerRegistry registry, String userId) implements Planner {
+
+        @Override
+        public int add(Activity activity) {
+            return registry.withUser(userId, p -> {
+                p.getActivityManager().addActivity(activity);
+                return activity.getId();
+            });
+        }
+
+        @Override
+        public void complete(int activityId) {
+            registry.withUser(userId, p -> p.completeActivity(activityId));
+        }
+
+        @Override
+        public MoodType logMood(MoodType mood) {
+            return registry.withUser(userId, p -> p.logMood(mood).getMoodType());
+        }
+
+        @Override
+        public void suggest(MoodType mood) {
+            registry.withUser(userId, p -> p.suggestActivities(mood));
+        }
+
+        @Override
+        public void query(ActivityQuery query) {
+            registry.withUser(userId, p -> p.getActivityManager().query(query));
+        }
+    }
+
+    /**
+     * Latencies recorded by one user thread. Only that thread writes to it.
+     */
+    private static final class Recorder {
+
+        /** Latencies in nanoseconds, per operation. */
+        final long[][] samples = new long[Op.values().length][1024];
+
+        /** Number of samples recorded, per operation. */
+        final int[] counts = new int[Op.values().length];
+
+        /** Number of operations that threw, per operation. */
+        final int[] errors = new int[Op.values().length];
+
+        /** Scheduled time of the first recorded operation, or Long.MAX_VALUE if none. */
+        long firstScheduled = Long.MAX_VALUE;
+
+        /** Completion time of the last recorded operation. */
+        long lastDone = Long.MIN_VALUE;
+
+        /**
+         * Records one operation's latency.
+         *
+         * @param op        the operation
+         * @param scheduled when the operation was due to start
+         * @param done      when it finished
+         */
+        void record(Op op, long scheduled, long done) {
+            int i = op.ordinal();
+            long nanos = done - scheduled;
+            firstScheduled = Math.min(firstScheduled, scheduled);
+            lastDone = Math.max(lastDone, done);
+            if (counts[i] == samples[i].length) {
+                samples[i] = Arrays.copyOf(samples[i], counts[i] * 2);
+            }
+            samples[i][counts[i]++] = nanos;
+        }
+    }
+
+    /**
+     * Runs the load test and prints the report.
+     *
+     * @param args key=value settings, see the class description
+     * @throws Exception if the stub server or temporary files cannot be created
+     */
+    public static void main(String[] args) throws Exception {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        Path dir = Files.createTempDirectory("mood-planner-load");
+        ExecutorService stubThreads = Executors.newFixedThreadPool(Math.max(2, config.users()));
+        HttpServer stub = startQuoteStub(config.quoteDelayMs(), stubThreads);
+        PlannerRegistry registry = null;
+        try {
+            ExternalService service = new ExternalService(
+                    "http://127.0.0.1:" + stub.getAddress().getPort() + "/api/random");
+            Planner[] planners = new Planner[config.users()];
+            if (config.registry()) {
+                registry = new PlannerRegistry(dir.resolve("users").toString(),
+                        config.registryShards(), config.usersPerShard());
+                for (int u = 0; u < planners.length; u++) {
+                    planners[u] = new RegistryPlanner(registry, "user-" + u);
+                }
+            } else {
+                ActivityManager shared = null;
+                for (int u = 0; u < planners.length; u++) {
+                    ActivityManager manager = config.sharedActivities() && shared != null
+                            ? shared
+                            : new ActivityManager(new ActivityArchive(dir.resolve("completed_" + u + ".txt").toString()));
+                    shared = manager;
+                    planners[u] = new DirectPlanner(manager, new MoodManager());
+                }
+            }
+
+            Recorder[] recorders = run(config, planners, service);
+            report(config, recorders, service);
+        } finally {
+            if (registry != null) {
+                registry.close();
+            }
+            stub.stop(0);
+            stubThreads.shutdownNow();
+            try (var files = Files.walk(dir)) {
+                for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the simulated users, waits for them to finish, and returns their samples.
+     *
+     * @param config   the workload settings
+     * @param planners the planner operations for each user
+     * @param service  the shared external service
+     * @return one recorder per user
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static Recorder[] run(Config config, Planner[] planners, ExternalService service)
+            throws InterruptedException {
+        int users = config.users();
+        double[] cumulative = config.weights();
+        double total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += cumulative[i];
+            cumulative[i] = total;
+        }
+        long pace = Math.max(1, (long) (1e9 / total));
+
+        Recorder[] recorders = new Recorder[users];
+        CountDownLatch done = new CountDownLatch(users);
+        long start = System.nanoTime() + 50_000_000L;
+        long measureFrom = start + (long) (config.warmup() * 1e9);
+        long end = measureFrom + (long) (config.seconds() * 1e9);
+        double weightTotal = total;
+
+        for (int u = 0; u < users; u++) {
+            Recorder recorder = new Recorder();
+            recorders[u] = recorder;
+            Planner planner = planners[u];
+            Random random = new Random(config.seed() + u);
+            Thread t = new Thread(() -> {
+                try {
+                    simulateUser(planner, service, random, cumulative, weightTotal,
+                            start + (long) (random.nextDouble() * pace), pace, measureFrom, end, recorder);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-user-" + u);
+            t.setDaemon(true);
+            t.start();
+        }
+        done.await();
+        return recorders;
+    }
+
+    /**
+     * Runs one user's operations on a fixed schedule until the end time.
+     *
+     * @param planner     this user's planner operations
+     * @param service     the shared external service
+     * @param random      this user's random source
+     * @param cumulative  cumulative operation weights
+     * @param total       sum of the weights
+     * @param first       scheduled time of the first operation
+     * @param pace        nanoseconds between scheduled operations
+     * @param measureFrom operations scheduled before this are not recorded
+     * @param end         no operations are scheduled at or after this
+     * @param recorder    where latencies go
+     */
+    private static void simulateUser(Planner planner, ExternalService service,
+                                     Random random, double[] cumulative, double total, long first, long pace,
+                                     long measureFrom, long end, Recorder recorder) {
+        ArrayList<Integer> open = new ArrayList<>();
+        MoodType mood = MoodType.NEUTRAL;
+        LocalDate today = LocalDate.now();
+        ActivityQuery upcoming = ActivityQuery.effort(LevelMood.HIGH)
+                .and(ActivityQuery.dueBetween(today, today.plusDays(7)));
+        Op[] ops = Op.values();
+
+        for (long scheduled = first; scheduled < end; scheduled += pace) {
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            double pick = random.nextDouble() * total;
+            Op op = ops[ops.length - 1];
+            for (int i = 0; i < cumulative.length; i++) {
+                if (pick < cumulative[i]) {
+                    op = ops[i];
+                    break;
+                }
+            }
+            if (op == Op.COMPLETE && open.isEmpty()) {
+                op = Op.ADD_ACTIVITY;
+            }
+
+            boolean failed = false;
+            try {
+                switch (op) {
+                    case ADD_ACTIVITY -> {
+                        LevelMood effort = LevelMood.values()[random.nextInt(3)];
+                        LocalDate due = today.plusDays(random.nextInt(30));
+                        Activity a = random.nextBoolean()
+                                ? new SchoolActivity(0, "Assignment", "Generated by load test", effort, due,
+                                        "CIS" + (100 + random.nextInt(20)))
+                                : new PersonalActivity(0, "Errand", "Generated by load test", effort, due);
+                        open.add(planner.add(a));
+                    }
+                    case COMPLETE -> planner.complete(open.remove(open.size() - 1));
+                    case LOG_MOOD -> mood = planner.logMood(MoodType.values()[random.nextInt(3)]);
+                    case SUGGEST -> planner.suggest(mood);
+                    case QUERY -> planner.query(upcoming);
+                    case MOOD_QUOTE -> failed = service.getMotivationalQuoteForMood(mood)
+                            .endsWith(ExternalService.FALLBACK_QUOTE);
+                    case API_QUOTE -> failed = service.getMotivationalQuote()
+                            .equals(ExternalService.FALLBACK_QUOTE);
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+            }
+
+            if (scheduled >= measureFrom) {
+                recorder.record(op, scheduled, System.nanoTime());
+                if (failed) {
+                    recorder.errors[op.ordinal()]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints throughput and latency percentiles per operation and overall, followed
+     * by the quote service's merge and failure counts.
+     *
+     * @param config    the workload settings
+     * @param recorders the samples from every user
+     * @param service   the quote service used by the run
+     */
+    private static void report(Config config, Recorder[] recorders, ExternalService service) {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (Recorder r : recorders) {
+            first = Math.min(first, r.firstScheduled);
+            last = Math.max(last, r.lastDone);
+        }
+        double seconds = last > first ? (last - first) / 1e9 : config.seconds();
+        double offered = config.users() * config.writesPerSecond() * (1 + config.readsPerWrite());
+
+        System.out.printf("%d users, %.0f s measured after %.0f s warm-up, %s%n",
+                config.users(), config.seconds(), config.warmup(),
+                config.registry()
+                        ? String.format("planner registry with %d shards of %d users in memory",
+                                config.registryShards(), config.usersPerShard())
+                        : config.sharedActivities() ? "one shared activity manager" : "one activity manager per user");
+        System.out.printf("Per user: %.2f activities/s, %.2f moods/s, %.0f%% completed, %.1f reads per write%n",
+                config.activityRate(), config.moodRate(), config.completeRatio() * 100, config.readsPerWrite());
+        System.out.printf("Offered %.1f ops/s; throughput below is over the %.2f s it took to finish them%n%n",
+                offered, seconds);
+        System.out.printf("%-13s %9s %6s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        ArrayList<long[]> all = new ArrayList<>();
+        int allErrors = 0;
+        for (Op op : Op.values()) {
+            int n = 0;
+            int errors = 0;
+            for (Recorder r : recorders) {
+                n += r.counts[op.ordinal()];
+                errors += r.errors[op.ordinal()];
+            }
+            long[] merged = new long[n];
+            int pos = 0;
+            for (Recorder r : recorders) {
+                System.arraycopy(r.samples[op.ordinal()], 0, merged, pos, r.counts[op.ordinal()]);
+                pos += r.counts[op.ordinal()];
+            }
+            all.add(merged);
+            allErrors += errors;
+            printRow(op.name(), merged, errors, seconds);
+        }
+
+        long[] total = new long[all.stream().mapToInt(a -> a.length).sum()];
+        int pos = 0;
+        for (long[] a : all) {
+            System.arraycopy(a, 0, total, pos, a.length);
+            pos += a.length;
+        }
+        printRow("TOTAL", total, allErrors, seconds);
+        System.out.printf("%nQuote API: %d quotes merged into the corpus, %d failed fetches%n",
+                service.getMergedQuoteCount(), service.getFailedFetchCount());
+    }
+
+    /**
+     * Prints one report row. Sorts the samples in place.
+     *
+     * @param label   the row label
+     * @param samples latencies in nanoseconds
+     * @param errors  number of failed operations
+     * @param seconds the time taken to complete the measured operations
+     */
+    private static void printRow(String label, long[] samples, int errors, double seconds) {
+        Arrays.sort(samples);
+        System.out.printf("%-13s %9d %6d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                label, samples.length, errors, samples.length / seconds,
+                percentile(samples, 0.50), percentile(samples, 0.90), percentile(samples, 0.99),
+                percentile(samples, 0.999), percentile(samples, 1.0));
+    }
+
+    /**
+     * Returns a percentile of sorted samples in milliseconds (nearest rank).
+     *
+     * @param sorted latencies in nanoseconds, ascending
+     * @param p      the percentile as a fraction in (0, 1]
+     * @return the latency in milliseconds, or 0 if there are no samples
+     */
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    /**
+     * Starts a local HTTP server that answers like the ZenQuotes random endpoint.
+     * It cycles through 50 fixed quotes. Background fetches started by mood quote
+     * requests merge them into the service's corpus, so at most 50 quotes are added
+     * per mood and the merge count in the report levels off.
+     *
+     * @param delayMs delay before each response, to stand in for network latency
+     * @param threads runs the request handlers
+     * @return the running server
+     * @throws IOException if the server cannot be started
+     */
+    private static HttpServer startQuoteStub(int delayMs, ExecutorService threads) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        AtomicLong served = new AtomicLong();
+        server.createContext("/api/random", exchange -> {
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            long n = served.getAndIncrement() % 50;
+            byte[] body = ("[{\"q\":\"Stub quote number " + n + "\",\"a\":\"Load Test\",\"h\":\"\"}]")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(threads);
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,341 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+
+/**
+ * Persistent mood history stored as fixed-size binary records in a memory-mapped file.
+ *
+ * <p>Each record is 16 bytes: the log ID (int), the timestamp in epoch milliseconds
+ * (long, independent of time zone and daylight saving) and the {@link MoodType}
+ * ordinal (byte), followed by padding. Records are
+ * appended in time order, so a timestamp range can be found with a binary search
+ * in O(log n) and read straight from the mapped file without loading the rest of
+ * the history.</p>
+ *
+ * <p>The file is mapped in segments of {@value #SEGMENT_RECORDS} records. Opening a
+ * log only reads the 16-byte header; segments are mapped the first time they are
+ * touched, and new segments are added as the log grows.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see MoodManager
+ * @see MoodLog
+ */
+public class MappedMoodLog implements AutoCloseable {
+
+    /**
+     * Receives records read from the log without creating {@link MoodLog} objects.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+
+        /**
+         * Called once for each record in a range.
+         *
+         * @param id          the log ID
+         * @param epochMillis the timestamp in epoch milliseconds
+         * @param mood        the logged mood
+         */
+        void visit(int id, long epochMillis, MoodType mood);
+    }
+
+    /** Marks the file as a mood log ("MOOD"). */
+    private static final int MAGIC = 0x4D4F4F44;
+
+    /** File format version. */
+    private static final int VERSION = 1;
+
+    /** Size of the file header in bytes. */
+    private static final int HEADER_BYTES = 16;
+
+    /** Offset of the record count within the header. */
+    private static final int COUNT_OFFSET = 8;
+
+    /** Size of one record in bytes. */
+    private static final int RECORD_BYTES = 16;
+
+    /** Number of records in each mapped segment. */
+    private static final int SEGMENT_RECORDS = 65536;
+
+    /** Size of one mapped segment in bytes. */
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_BYTES;
+
+    /** Cached mood types, indexed by ordinal. */
+    private static final MoodType[] MOODS = MoodType.values();
+
+    /** Channel for the log file. */
+    private final FileChannel channel;
+
+    /** Mapping of the file header. */
+    private final MappedByteBuffer header;
+
+    /** Mapped record segments; entries are null until first used. */
+    private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+
+    /** Number of records in the log. */
+    private long count;
+
+    /**
+     * Opens a mood log file, creating it if it does not exist.
+     *
+     * @param filename the name of the log file (cannot be null)
+     * @throws IOException if the file cannot be opened or is not a mood log
+     * @throws IllegalArgumentException if filename is null
+     */
+    public MappedMoodLog(String filename) throws IOException {
+        if (filename == null) {
+            throw new IllegalArgumentException("Filename cannot be null");
+        }
+
+        channel = FileChannel.open(Path.of(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean isNew = channel.size() < HEADER_BYTES;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+
+            if (isNew) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(filename + " is not a mood log");
+            }
+            count = header.getLong(COUNT_OFFSET);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a mood log entry.
+     *
+     * @param log the entry to append (cannot be null)
+     * @throws IOException if the file cannot grow
+     * @throws IllegalArgumentException if log is null or older than the last entry
+     */
+    public void append(MoodLog log) throws IOException {
+        if (log == null) {
+            throw new IllegalArgumentException("MoodLog cannot be null");
+        }
+        append(log.getId(), log.getInstant().toEpochMilli(), log.getMoodType());
+    }
+
+    /**
+     * Appends a record. Timestamps must not go backwards.
+     *
+     * @param id          the log ID
+     * @param epochMillis the timestamp in epoch milliseconds
+     * @param mood        the logged mood (cannot be null)
+     * @throws IOException if the file cannot grow
+     * @throws IllegalArgumentException if mood is null or the timestamp is older than the last record
+     */
+    public synchronized void append(int id, long epochMillis, MoodType mood) throws IOException {
+        if (mood == null) {
+            throw new IllegalArgumentException("Mood cannot be null");
+        }
+        if (count > 0 && epochMillis < timestampAt(count - 1)) {
+            throw new IllegalArgumentException("Mood logs must be appended in time order");
+        }
+
+        MappedByteBuffer segment = segment(count);
+        int offset = offsetInSegment(count);
+        segment.putInt(offset, id);
+        segment.putLong(offset + 4, epochMillis);
+        segment.put(offset + 12, (byte) mood.ordinal());
+
+        count++;
+        header.putLong(COUNT_OFFSET, count);
+    }
+
+    /**
+     * Returns the number of records in the log.
+     *
+     * @return the record count
+     */
+    public synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Returns the record at the given position as a MoodLog.
+     *
+     * @param index the record position, 0 being the oldest
+     * @return the mood log entry
+     * @throws IOException if the segment cannot be mapped
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public synchronized MoodLog get(long index) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + count);
+        }
+        MappedByteBuffer segment = segment(index);
+        int offset = offsetInSegment(index);
+        return new MoodLog(segment.getInt(offset), MOODS[segment.get(offset + 12)],
+                Instant.ofEpochMilli(segment.getLong(offset + 4)));
+    }
+
+    /**
+     * Visits every record with a timestamp in [fromMillis, toMillis), oldest first.
+     * The start of the range is found by binary search and records are read directly
+     * from the mapped file.
+     *
+     * @param fromMillis start of the range in epoch milliseconds (inclusive)
+     * @param toMillis   end of the range in epoch milliseconds (exclusive)
+     * @param visitor    receives each record (cannot be null)
+     * @return the number of records visited
+     * @throws IOException if a segment cannot be mapped
+     * @throws IllegalArgumentException if visitor is null
+     */
+    public synchronized long forEachInRange(long fromMillis, long toMillis, RecordVisitor visitor)
+            throws IOException {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor cannot be null");
+        }
+
+        long visited = 0;
+        for (long i = lowerBound(fromMillis); i < count; i++) {
+            MappedByteBuffer segment = segment(i);
+            int offset = offsetInSegment(i);
+            long millis = segment.getLong(offset + 4);
+            if (millis >= toMillis) {
+                break;
+            }
+            visitor.visit(segment.getInt(offset), millis, MOODS[segment.get(offset + 12)]);
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Returns all mood logs with a timestamp in [from, to), oldest first.
+     *
+     * @param from start of the range (inclusive, cannot be null)
+     * @param to   end of the range (exclusive, cannot be null)
+     * @return a new list containing the matching entries
+     * @throws IOException if a segment cannot be mapped
+     * @throws IllegalArgumentException if from or to is null
+     */
+    public ArrayList<MoodLog> range(LocalDateTime from, LocalDateTime to) throws IOException {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Range bounds cannot be null");
+        }
+        ArrayList<MoodLog> result = new ArrayList<>();
+        forEachInRange(toEpochMillis(from), toEpochMillis(to), (id, millis, mood) ->
+                result.add(new MoodLog(id, mood, Instant.ofEpochMilli(millis))));
+        return result;
+    }
+
+    /**
+     * Returns the timestamp of the newest record.
+     *
+     * @return the timestamp in epoch milliseconds, or Long.MIN_VALUE if the log is empty
+     * @throws IOException if the segment cannot be mapped
+     */
+    public synchronized long lastTimestamp() throws IOException {
+        return count > 0 ? timestampAt(count - 1) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Flushes all mapped data to disk.
+     */
+    public synchronized void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Flushes the log and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Converts a local date-time to epoch milliseconds in the system time zone.
+     *
+     * @param time the date-time to convert
+     * @return the epoch milliseconds
+     */
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Finds the first record whose timestamp is at least the given value.
+     *
+     * @param epochMillis the timestamp to search for
+     * @return the index of the first matching record, or the record count if none match
+     * @throws IOException if a segment cannot be mapped
+     */
+    private long lowerBound(long epochMillis) throws IOException {
+        long lo = 0;
+        long hi = count;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (timestampAt(mid) < epochMillis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Reads the timestamp of a record.
+     *
+     * @param index the record position
+     * @return the timestamp in epoch milliseconds
+     * @throws IOException if the segment cannot be mapped
+     */
+    private long timestampAt(long index) throws IOException {
+        return segment(index).getLong(offsetInSegment(index) + 4);
+    }
+
+    /**
+     * Returns the byte offset of a record within its segment.
+     *
+     * @param index the record position
+     * @return the offset in bytes
+     */
+    private static int offsetInSegment(long index) {
+        return (int) (index % SEGMENT_RECORDS) * RECORD_BYTES;
+    }
+
+    /**
+     * Returns the mapped segment holding a record, mapping it (and growing the
+     * file) if it has not been used yet.
+     *
+     * @param index the record position
+     * @return the mapped segment
+     * @throws IOException if the segment cannot be mapped
+     */
+    private MappedByteBuffer segment(long index) throws IOException {
+        int number = (int) (index / SEGMENT_RECORDS);
+        while (segments.size() <= number) {
+            segments.add(null);
+        }
+        MappedByteBuffer segment = segments.get(number);
+        if (segment == null) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + number * SEGMENT_BYTES, SEGMENT_BYTES);
+            segments.set(number, segment);
+        }
+        return segment;
+    }
+}
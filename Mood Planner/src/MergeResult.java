@@ -0,0 +1,68 @@
+/**
+ * Reports what happened when a file was merged into an {@link ActivityManager}.
+ *
+ * <p>This class is immutable and thread-safe.</p>
+ *
+ * @see ActivityManager#mergeActivitiesFromFile(String)
+ */
+public class MergeResult {
+
+    /** Activities whose ID and content were both new. */
+    private final int added;
+
+    /** Activities whose ID already existed with different content. */
+    private final int updated;
+
+    /** Activities that matched an existing activity and were ignored. */
+    private final int skipped;
+
+    /**
+     * Creates a merge report.
+     *
+     * @param added   number of activities added
+     * @param updated number of activities updated
+     * @param skipped number of duplicate activities skipped
+     */
+    public MergeResult(int added, int updated, int skipped) {
+        this.added = added;
+        this.updated = updated;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Returns how many activities were added.
+     *
+     * @return the number of added activities
+     */
+    public int getAdded() {
+        return added;
+    }
+
+    /**
+     * Returns how many existing activities were replaced with new content.
+     *
+     * @return the number of updated activities
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Returns how many activities were skipped as duplicates.
+     *
+     * @return the number of skipped activities
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns a string representation of this report.
+     *
+     * @return a string containing the three counts
+     */
+    @Override
+    public String toString() {
+        return "MergeResult{added=" + added + ", updated=" + updated + ", skipped=" + skipped + "}";
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Learns which effort levels a user actually completes in each mood.
+ *
+ * <p>The model keeps a count of completions for every (mood, effort level) pair.
+ * Mood logs and activity completions are fed in as they happen; each completion is
+ * credited to the most recent mood logged before it, as long as that mood is not
+ * older than a staleness window. Times are compared as instants, so the window
+ * is not stretched or shortened by daylight saving or time-zone changes. Every
+ * update is O(1) and there is no batch retraining.</p>
+ *
+ * <p>Until enough completions have been seen, the static
+ * {@link MoodType#getRecommendedEffortLevel()} mapping acts as a prior, so a new
+ * user gets the same suggestions as before and the learned preferences take over
+ * as evidence accumulates.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see ActivityManager#suggestActivitiesByMood(MoodType, MoodEffortModel)
+ */
+public class MoodEffortModel {
+
+    /** Pseudo-completions credited to the static recommendation for each mood. */
+    private static final double PRIOR_WEIGHT = 3.0;
+
+    /** Pseudo-completions credited to every other effort level. */
+    private static final double SMOOTHING = 1.0;
+
+    /** First field of the saved line that holds the current mood. */
+    private static final String LAST_MOOD = "LAST";
+
+    /** Cached effort levels, indexed by ordinal. */
+    private static final LevelMood[] LEVELS = LevelMood.values();
+
+    /** Completion counts indexed by [mood ordinal][effort ordinal]. */
+    private final long[][] counts = new long[MoodType.values().length][LEVELS.length];
+
+    /** How long a logged mood is considered to still describe the user. */
+    private final Duration moodWindow;
+
+    /** The most recently logged mood, or null if none yet. */
+    private MoodType lastMood;
+
+    /** When the most recent mood was logged. */
+    private Instant lastMoodTime;
+
+    /**
+     * Creates a model that credits completions to moods logged within the last 12 hours.
+     */
+    public MoodEffortModel() {
+        this(Duration.ofHours(12));
+    }
+
+    /**
+     * Creates a model with a custom mood staleness window.
+     *
+     * @param moodWindow how long a logged mood stays current (must be positive)
+     * @throws IllegalArgumentException if moodWindow is null, zero or negative
+     */
+    public MoodEffortModel(Duration moodWindow) {
+        if (moodWindow == null || moodWindow.isNegative() || moodWindow.isZero()) {
+            throw new IllegalArgumentException("Mood window must be positive");
+        }
+        this.moodWindow = moodWindow;
+    }
+
+    /**
+     * Records that the user logged a mood.
+     *
+     * @param log the mood log entry (cannot be null)
+     * @throws IllegalArgumentException if log is null
+     */
+    public synchronized void recordMood(MoodLog log) {
+        if (log == null) {
+            throw new IllegalArgumentException("MoodLog cannot be null");
+        }
+        lastMood = log.getMoodType();
+        lastMoodTime = log.getInstant();
+    }
+
+    /**
+     * Records that the user completed an activity of the given effort level.
+     * The completion is credited to the current mood, if there is one.
+     *
+     * @param effort the effort level of the completed activity (cannot be null)
+     * @param when   when the activity was completed (cannot be null)
+     * @return true if the completion was credited to a mood
+     * @throws IllegalArgumentException if effort or when is null
+     */
+    public synchronized boolean recordCompletion(LevelMood effort, Instant when) {
+        if (effort == null || when == null) {
+            throw new IllegalArgumentException("Effort and time cannot be null");
+        }
+        if (lastMood == null || when.isAfter(lastMoodTime.plus(moodWindow))) {
+            return false;
+        }
+        counts[lastMood.ordinal()][effort.ordinal()]++;
+        return true;
+    }
+
+    /**
+     * Returns the estimated probability that the user completes an activity of the
+     * given effort level while in the given mood.
+     *
+     * @param mood   the mood (cannot be null)
+     * @param effort the effort level (cannot be null)
+     * @return a score between 0 and 1
+     * @throws IllegalArgumentException if mood or effort is null
+     */
+    public synchronized double score(MoodType mood, LevelMood effort) {
+        if (mood == null || effort == null) {
+            throw new IllegalArgumentException("Mood and effort cannot be null");
+        }
+        long[] row = counts[mood.ordinal()];
+        double total = 0;
+        for (long c : row) {
+            total += c;
+        }
+        total += PRIOR_WEIGHT + SMOOTHING * LEVELS.length;
+        return (row[effort.ordinal()] + prior(mood, effort)) / total;
+    }
+
+    /**
+     * Returns the effort level the user is most likely to complete in the given mood.
+     * Ties go to the static recommendation for the mood.
+     *
+     * @param mood the mood (cannot be null)
+     * @return the best effort level for that mood
+     * @throws IllegalArgumentException if mood is null
+     */
+    public synchronized LevelMood getRecommendedEffortLevel(MoodType mood) {
+        if (mood == null) {
+            throw new IllegalArgumentException("Mood cannot be null");
+        }
+        LevelMood best = mood.getRecommendedEffortLevel();
+        double bestScore = score(mood, best);
+        for (LevelMood level : LEVELS) {
+            double s = score(mood, level);
+            if (s > bestScore) {
+                best = level;
+                bestScore = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Saves the completion counts to a text file, one line per mood, followed by
+     * the current mood as "LAST,mood,epochMillis" if one has been logged.
+     *
+     * @param filename the name of the file to save to
+     * @return true if the save succeeded, false otherwise
+     */
+    public synchronized boolean saveToFile(String filename) {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Path.of(filename)))) {
+            for (MoodType mood : MoodType.values()) {
+                StringBuilder line = new StringBuilder(mood.name());
+                for (long c : counts[mood.ordinal()]) {
+                    line.append(',').append(c);
+                }
+                writer.println(line);
+            }
+            if (lastMood != null) {
+                writer.println(LAST_MOOD + "," + lastMood.name() + ","
+                        + lastMoodTime.toEpochMilli());
+            }
+            return !writer.checkError();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads completion counts and the current mood saved by {@link #saveToFile(String)},
+     * replacing the current ones. Files without a current mood leave it unchanged.
+     *
+     * @param filename the name of the file to load from
+     * @return true if the load succeeded, false otherwise
+     */
+    public synchronized boolean loadFromFile(String filename) {
+        long[][] loaded = new long[counts.length][LEVELS.length];
+        MoodType loadedMood = null;
+        Instant loadedTime = null;
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(filename))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] p = line.split(",");
+                if (p.length == 3 && p[0].equals(LAST_MOOD)) {
+                    loadedMood = MoodType.valueOf(p[1]);
+                    loadedTime = Instant.ofEpochMilli(Long.parseLong(p[2]));
+                    continue;
+                }
+                if (p.length != LEVELS.length + 1) {
+                    continue;
+                }
+                int mood = MoodType.valueOf(p[0]).ordinal();
+                for (int i = 0; i < LEVELS.length; i++) {
+                    loaded[mood][i] = Long.parseLong(p[i + 1]);
+                }
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = loaded[i];
+        }
+        if (loadedMood != null) {
+            lastMood = loadedMood;
+            lastMoodTime = loadedTime;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the pseudo-count given to an effort level before any data is seen.
+     *
+     * @param mood   the mood
+     * @param effort the effort level
+     * @return the prior pseudo-count
+     */
+    private static double prior(MoodType mood, LevelMood effort) {
+        return effort == mood.getRecommendedEffortLevel() ? PRIOR_WEIGHT + SMOOTHING : SMOOTHING;
+    }
+}
@@ -8,7 +8,9 @@
  * @see MoodManager
  * @see MoodType
  */
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 public class MoodLog {
 
@@ -18,8 +20,11 @@ public class MoodLog {
     /** The type of mood that was logged. */
     private final MoodType moodType;
 
-    /** The date and time when the mood was logged. */
-    private final LocalDateTime timestamp;
+    /**
+     * The instant when the mood was logged. Stored as an instant rather than a
+     * local date-time so it keeps increasing across daylight saving changes.
+     */
+    private final Instant instant;
 
     /**
      * Creates a new mood log entry.
@@ -29,12 +34,48 @@ public class MoodLog {
      * @throws IllegalArgumentException if moodType is null
      */
     public MoodLog(int id, MoodType moodType) {
+        this(id, moodType, Instant.now());
+    }
+
+    /**
+     * Creates a mood log entry with a given timestamp, for example when
+     * reading stored history.
+     *
+     * @param id        unique identifier for this log
+     * @param moodType  the mood that was logged (cannot be null)
+     * @param timestamp when the mood was logged (cannot be null)
+     * @throws IllegalArgumentException if moodType or timestamp is null
+     */
+    public MoodLog(int id, MoodType moodType, LocalDateTime timestamp) {
+        if (moodType == null) {
+            throw new IllegalArgumentException("MoodType cannot be null");
+        }
+        if (timestamp == null) {
+            throw new IllegalArgumentException("Timestamp cannot be null");
+        }
+        this.id = id;
+        this.moodType = moodType;
+        this.instant = timestamp.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Creates a mood log entry logged at the given instant.
+     *
+     * @param id       unique identifier for this log
+     * @param moodType the mood that was logged (cannot be null)
+     * @param instant  when the mood was logged (cannot be null)
+     * @throws IllegalArgumentException if moodType or instant is null
+     */
+    public MoodLog(int id, MoodType moodType, Instant instant) {
         if (moodType == null) {
             throw new IllegalArgumentException("MoodType cannot be null");
         }
+        if (instant == null) {
+            throw new IllegalArgumentException("Instant cannot be null");
+        }
         this.id = id;
         this.moodType = moodType;
-        this.timestamp = LocalDateTime.now();
+        this.instant = instant;
     }
 
     /**
@@ -57,12 +98,21 @@ public class MoodLog {
     }
 
     /**
-     * Returns the date and time when this mood was logged.
+     * Returns the date and time when this mood was logged, in the system time zone.
      *
      * @return the timestamp of the mood log entry
      */
     public LocalDateTime getTimestamp() {
-        return timestamp;
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * Returns the instant when this mood was logged.
+     *
+     * @return the instant of the mood log entry
+     */
+    public Instant getInstant() {
+        return instant;
     }
 
     /**
@@ -75,6 +125,6 @@ public class MoodLog {
     public String toString() {
         return "MoodLog{id=" + id +
                 ", moodType=" + moodType +
-                ", timestamp=" + timestamp + "}";
+                ", timestamp=" + getTimestamp() + "}";
     }
 }
@@ -1,7 +1,14 @@
 /**
  * Manages all MoodLog objects in an ArrayList.
  * Supports adding mood logs and retrieving mood history.
+ * Optionally writes every entry to a {@link MappedMoodLog} so history
+ * survives restarts and time ranges can be read without a full scan.
  */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 
 public class MoodManager {
@@ -9,20 +16,87 @@ public class MoodManager {
     /** List to store all mood log entries. */
     private final ArrayList<MoodLog> moodLogs = new ArrayList<>();
 
+    /** Persistent history, or null if moods are only kept in memory. */
+    private final MappedMoodLog history;
+
     /** Counter to generate unique IDs for each mood log entry. */
     private int nextId = 1;
 
+    /**
+     * Timestamp of the newest entry in epoch milliseconds. New entries never get an
+     * earlier time, even if the system clock is set back.
+     */
+    private long lastMillis = Long.MIN_VALUE;
+
+    /** Notifies subscribers of newly logged moods. */
+    private final ChangeStream<MoodLog> changes = new ChangeStream<>("mood-changes");
+
+    /**
+     * Creates a manager that keeps moods in memory only.
+     */
+    public MoodManager() {
+        this.history = null;
+    }
+
+    /**
+     * Creates a manager that also writes every mood to a persistent history.
+     * IDs continue after the last entry already stored in the history.
+     *
+     * @param history the persistent mood history (cannot be null)
+     * @throws IOException if the history cannot be read
+     * @throws IllegalArgumentException if history is null
+     */
+    public MoodManager(MappedMoodLog history) throws IOException {
+        if (history == null) {
+            throw new IllegalArgumentException("History cannot be null");
+        }
+        this.history = history;
+        if (history.size() > 0) {
+            nextId = history.get(history.size() - 1).getId() + 1;
+            lastMillis = history.lastTimestamp();
+        }
+    }
+
     /**
      * Logs a new mood entry.
+     * The entry is timestamped now, or at the previous entry's time if the system
+     * clock has gone backwards, so the history always stays in time order.
+     * If the entry cannot be written, no ID is used up.
      *
      * @param mood the mood to log (cannot be null)
+     * @return the new mood log entry
      * @throws IllegalArgumentException if mood is null
+     * @throws UncheckedIOException if the entry cannot be written to the persistent history
      */
-    public void logMood(MoodType mood) {
+    public MoodLog logMood(MoodType mood) {
         if (mood == null) {
             throw new IllegalArgumentException("Mood cannot be null");
         }
-        moodLogs.add(new MoodLog(nextId++, mood));
+        long millis = Math.max(System.currentTimeMillis(), lastMillis);
+        MoodLog log = new MoodLog(nextId, mood, Instant.ofEpochMilli(millis));
+        if (history != null) {
+            try {
+                history.append(log);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        nextId++;
+        lastMillis = millis;
+        moodLogs.add(log);
+        if (changes.hasSubscribers()) {
+            changes.publish(log);
+        }
+        return log;
+    }
+
+    /**
+     * Returns the stream of newly logged moods.
+     *
+     * @return the change stream
+     */
+    public ChangeStream<MoodLog> getChangeStream() {
+        return changes;
     }
 
     /**
@@ -33,4 +107,38 @@ public class MoodManager {
     public ArrayList<MoodLog> getAllMoodLogs() {
         return new ArrayList<>(moodLogs);
     }
+
+    /**
+     * Retrieves the mood log entries logged in [from, to).
+     * When a persistent history is attached, the range is read from it with a
+     * binary search and includes entries from earlier sessions.
+     *
+     * @param from start of the range (inclusive, cannot be null)
+     * @param to   end of the range (exclusive, cannot be null)
+     * @return a new list containing the matching mood logs, oldest first
+     * @throws IllegalArgumentException if from or to is null
+     * @throws UncheckedIOException if the persistent history cannot be read
+     */
+    public ArrayList<MoodLog> getMoodLogsBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Range bounds cannot be null");
+        }
+        if (history != null) {
+            try {
+                return history.range(from, to);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Instant start = from.atZone(ZoneId.systemDefault()).toInstant();
+        Instant end = to.atZone(ZoneId.systemDefault()).toInstant();
+        ArrayList<MoodLog> result = new ArrayList<>();
+        for (MoodLog log : moodLogs) {
+            if (!log.getInstant().isBefore(start) && log.getInstant().isBefore(end)) {
+                result.add(log);
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,215 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Holds a separate {@link UserPlanner} for every user, spread over independent shards.
+ *
+ * <p>Each user ID is hashed to one shard, and each shard has its own lock, so work for
+ * users in different shards runs in parallel. Planners are opened from disk the first
+ * time a user is seen. When a shard holds more than its limit of users, the least
+ * recently used planner is saved to disk and dropped from memory, which keeps memory
+ * per shard bounded.</p>
+ *
+ * <p>User IDs are case-insensitive: "Sam" and "sam" are the same user. IDs are
+ * lower-cased before use, so two users never share a directory on a file system
+ * that ignores case.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see UserPlanner
+ */
+public class PlannerRegistry implements AutoCloseable {
+
+    /**
+     * One partition of the registry: its users in least-recently-used order.
+     */
+    private static final class Shard {
+
+        /** Planners in access order, least recently used first. Guarded by the shard. */
+        final LinkedHashMap<String, UserPlanner> planners = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /** Directory holding one sub-directory per user. */
+    private final Path baseDirectory;
+
+    /** The shards users are spread over. */
+    private final Shard[] shards;
+
+    /** Maximum number of planners kept in memory per shard. */
+    private final int maxUsersPerShard;
+
+    /**
+     * Creates a registry with one shard per available processor and up to
+     * 64 users in memory per shard.
+     *
+     * @param baseDirectory directory to store user data in (cannot be null)
+     * @throws IllegalArgumentException if baseDirectory is null
+     */
+    public PlannerRegistry(String baseDirectory) {
+        this(baseDirectory, Runtime.getRuntime().availableProcessors(), 64);
+    }
+
+    /**
+     * Creates a registry.
+     *
+     * @param baseDirectory    directory to store user data in (cannot be null)
+     * @param shardCount       number of shards (at least 1)
+     * @param maxUsersPerShard planners kept in memory per shard before spilling (at least 1)
+     * @throws IllegalArgumentException if baseDirectory is null or a count is less than 1
+     */
+    public PlannerRegistry(String baseDirectory, int shardCount, int maxUsersPerShard) {
+        if (baseDirectory == null) {
+            throw new IllegalArgumentException("Base directory cannot be null");
+        }
+        if (shardCount < 1 || maxUsersPerShard < 1) {
+            throw new IllegalArgumentException("Shard count and users per shard must be at least 1");
+        }
+        this.baseDirectory = Path.of(baseDirectory);
+        this.maxUsersPerShard = maxUsersPerShard;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Runs an action against a user's planner while holding that user's shard lock.
+     * The planner is opened from disk if it is not in memory, and the shard's least
+     * recently used planners are spilled to disk if the shard is over its limit.
+     *
+     * <p>The action should not keep references to the planner after it returns,
+     * since the planner may be evicted at any time afterwards.</p>
+     *
+     * @param userId the user's ID (letters, digits, '-' and '_' only; case is ignored)
+     * @param action the work to do with the planner (cannot be null)
+     * @param <T>    the type of result
+     * @return the action's result
+     * @throws IllegalArgumentException if userId is invalid or action is null
+     * @throws UncheckedIOException if the planner cannot be opened or another one cannot be spilled
+     */
+    public <T> T withUser(String userId, Function<UserPlanner, T> action) {
+        if (userId == null || !userId.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid user ID: " + userId);
+        }
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+
+        userId = userId.toLowerCase(Locale.ROOT);
+        Shard shard = shardFor(userId);
+        synchronized (shard) {
+            UserPlanner planner = shard.planners.get(userId);
+            if (planner == null) {
+                try {
+                    planner = new UserPlanner(userId, baseDirectory.resolve(userId));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                shard.planners.put(userId, planner);
+                evictOverflow(shard);
+            }
+            return action.apply(planner);
+        }
+    }
+
+    /**
+     * Saves a user's planner to disk and removes it from memory.
+     *
+     * @param userId the user's ID (case is ignored)
+     * @return true if the user was in memory and has been evicted
+     * @throws UncheckedIOException if the planner cannot be saved
+     */
+    public boolean evict(String userId) {
+        if (userId == null) {
+            return false;
+        }
+        userId = userId.toLowerCase(Locale.ROOT);
+        Shard shard = shardFor(userId);
+        synchronized (shard) {
+            UserPlanner planner = shard.planners.get(userId);
+            if (planner == null) {
+                return false;
+            }
+            spill(planner);
+            shard.planners.remove(userId);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of users currently held in memory.
+     *
+     * @return the number of loaded planners
+     */
+    public int getLoadedUserCount() {
+        int total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.planners.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Saves every loaded planner to disk and removes them all from memory.
+     *
+     * @throws UncheckedIOException if a planner cannot be saved
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<UserPlanner> it = shard.planners.values().iterator();
+                while (it.hasNext()) {
+                    spill(it.next());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the shard a user belongs to.
+     *
+     * @param userId the user's ID
+     * @return the shard
+     */
+    private Shard shardFor(String userId) {
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+
+    /**
+     * Spills least recently used planners until the shard is within its limit.
+     * Must be called while holding the shard lock.
+     *
+     * @param shard the shard to trim
+     */
+    private void evictOverflow(Shard shard) {
+        Iterator<Map.Entry<String, UserPlanner>> it = shard.planners.entrySet().iterator();
+        while (shard.planners.size() > maxUsersPerShard && it.hasNext()) {
+            spill(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * Writes a planner to disk and closes its files.
+     *
+     * @param planner the planner to spill
+     * @throws UncheckedIOException if the planner cannot be saved
+     */
+    private static void spill(UserPlanner planner) {
+        try {
+            planner.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
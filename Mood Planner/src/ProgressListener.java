@@ -0,0 +1,25 @@
+/**
+ * Receives progress updates from long-running operations such as saving or
+ * loading activities.
+ *
+ * <p>Implementations are called from the thread doing the work, so they should
+ * return quickly and must not touch Swing components directly.</p>
+ *
+ * @see BackgroundTask
+ * @see ActivityManager#saveActivitiesToFile(String, ProgressListener)
+ * @see ActivityManager#loadActivitiesFromFile(String, ProgressListener)
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /** A listener that ignores all progress updates. */
+    ProgressListener NONE = (done, total) -> { };
+
+    /**
+     * Reports how much of an operation has been completed.
+     *
+     * @param done  the amount of work completed so far
+     * @param total the total amount of work, or a value &lt;= 0 if unknown
+     */
+    void onProgress(long done, long total);
+}
@@ -0,0 +1,328 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+/**
+ * A local collection of motivational quotes, tagged by mood and weighted.
+ *
+ * <p>The corpus is read once from a text resource with one quote per line:</p>
+ * <pre>
+ * # mood|weight|quote
+ * TIRED|2|Rest is not idleness. — John Lubbock
+ * *|1|Well begun is half done. — Aristotle
+ * </pre>
+ * <p>The mood is a {@link MoodType} name, or {@code *} for every mood. The weight is a
+ * positive number; a quote with weight 2 is picked twice as often as one with weight 1.</p>
+ *
+ * <p>Each mood keeps an alias table (Vose's method), so {@link #pick(MoodType)} takes
+ * constant time: one random slot, one random coin, and a stored string is returned
+ * without allocating. Quotes fetched from the network can be merged in with
+ * {@link #add(MoodType, String, double)}; that rebuilds the affected tables and
+ * publishes them with a single write, so picks never wait for it.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see ExternalService#getMotivationalQuoteForMood(MoodType)
+ */
+public class QuoteCorpus {
+
+    /** Most quotes kept per mood, so network merges cannot grow the corpus without bound. */
+    public static final int MAX_QUOTES_PER_MOOD = 512;
+
+    /** Built-in quotes, in resource format, used when the resource cannot be read. */
+    private static final String DEFAULT_QUOTES = """
+            TIRED|2|Rest is not idleness. — John Lubbock
+            TIRED|1|It does not matter how slowly you go as long as you do not stop. — Confucius
+            NEUTRAL|2|The secret of getting ahead is getting started. — Mark Twain
+            NEUTRAL|1|Well begun is half done. — Aristotle
+            ENERGETIC|2|The best way to predict the future is to create it. — Peter Drucker
+            *|1|A journey of a thousand miles begins with a single step. — Lao Tzu
+            """;
+
+    /**
+     * An alias table for one mood. Immutable once built.
+     *
+     * @param quotes      the formatted quotes
+     * @param weights     the original weights, kept for rebuilding
+     * @param probability chance of keeping slot i rather than taking its alias
+     * @param alias       the alternative for each slot
+     */
+    private record Table(String[] quotes, double[] weights, double[] probability, int[] alias) {
+
+        /** A table with no quotes. */
+        static final Table EMPTY = new Table(new String[0], new double[0], new double[0], new int[0]);
+    }
+
+    /** Turns a mood and raw quote into the string that {@link #pick} returns. */
+    private final BiFunction<MoodType, String, String> formatter;
+
+    /** Current table for each mood, indexed by ordinal; replaced as a whole on every change. */
+    private volatile Table[] tables;
+
+    /** Raw quotes already in the corpus, per mood ordinal (guarded by this). */
+    private final List<HashSet<String>> known = new ArrayList<>();
+
+    /**
+     * Creates an empty corpus.
+     *
+     * @param formatter turns a mood and raw quote into the stored string (cannot be null)
+     * @throws IllegalArgumentException if formatter is null
+     */
+    public QuoteCorpus(BiFunction<MoodType, String, String> formatter) {
+        if (formatter == null) {
+            throw new IllegalArgumentException("Formatter cannot be null");
+        }
+        this.formatter = formatter;
+        MoodType[] moods = MoodType.values();
+        tables = new Table[moods.length];
+        Arrays.fill(tables, Table.EMPTY);
+        for (int i = 0; i < moods.length; i++) {
+            known.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Creates a corpus from a classpath resource; malformed lines are skipped.
+     * If the resource is missing, cannot be read, or has no valid quotes, a warning is
+     * printed to standard error and a small built-in set of quotes is used instead,
+     * so every mood always has at least one quote.
+     *
+     * @param resource  the resource name, relative to the default package
+     * @param formatter turns a mood and raw quote into the stored string (cannot be null)
+     * @return the loaded corpus
+     * @throws IllegalArgumentException if formatter is null
+     */
+    public static QuoteCorpus fromResource(String resource, BiFunction<MoodType, String, String> formatter) {
+        QuoteCorpus corpus = new QuoteCorpus(formatter);
+        InputStream in = QuoteCorpus.class.getResourceAsStream(resource);
+        String problem = null;
+        if (in == null) {
+            problem = "not found";
+        } else {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                corpus.load(reader);
+            } catch (IOException e) {
+                problem = "could not be read (" + e.getMessage() + ")";
+            }
+        }
+        if (problem == null) {
+            for (MoodType m : MoodType.values()) {
+                if (corpus.size(m) == 0) {
+                    problem = "has no quotes for " + m;
+                    break;
+                }
+            }
+        }
+        if (problem != null) {
+            System.err.println("Warning: quote resource " + resource + " " + problem
+                    + "; using the built-in quotes");
+            try {
+                corpus.load(new BufferedReader(new StringReader(DEFAULT_QUOTES)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Built-in quotes could not be read", e);
+            }
+        }
+        return corpus;
+    }
+
+    /**
+     * Reads "mood|weight|quote" lines and adds them in one rebuild per mood.
+     *
+     * @param reader the source of lines
+     * @throws IOException if reading fails
+     */
+    public void load(BufferedReader reader) throws IOException {
+        ArrayList<ArrayList<String>> quotes = new ArrayList<>();
+        ArrayList<ArrayList<Double>> weights = new ArrayList<>();
+        for (int i = 0; i < MoodType.values().length; i++) {
+            quotes.add(new ArrayList<>());
+            weights.add(new ArrayList<>());
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\|", 3);
+            if (parts.length < 3 || parts[2].isBlank()) {
+                continue;
+            }
+            double weight;
+            try {
+                weight = Double.parseDouble(parts[1].trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (!(weight > 0)) {
+                continue;
+            }
+            String mood = parts[0].trim();
+            for (MoodType m : MoodType.values()) {
+                if (mood.equals("*") || mood.equalsIgnoreCase(m.name())) {
+                    quotes.get(m.ordinal()).add(parts[2].trim());
+                    weights.get(m.ordinal()).add(weight);
+                }
+            }
+        }
+
+        synchronized (this) {
+            Table[] next = tables.clone();
+            for (MoodType m : MoodType.values()) {
+                next[m.ordinal()] = merge(m, next[m.ordinal()], quotes.get(m.ordinal()), weights.get(m.ordinal()));
+            }
+            tables = next;
+        }
+    }
+
+    /**
+     * Adds a quote to the corpus. Quotes already present for a mood are ignored,
+     * as are additions once a mood holds {@link #MAX_QUOTES_PER_MOOD} quotes.
+     *
+     * @param mood   the mood to add the quote to, or null for every mood
+     * @param quote  the raw quote text (cannot be null or blank)
+     * @param weight the relative weight (must be positive)
+     * @return true if the quote was added to at least one mood
+     * @throws IllegalArgumentException if quote is blank or weight is not positive
+     */
+    public boolean add(MoodType mood, String quote, double weight) {
+        if (quote == null || quote.isBlank()) {
+            throw new IllegalArgumentException("Quote cannot be empty");
+        }
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("Weight must be positive");
+        }
+        boolean added = false;
+        synchronized (this) {
+            Table[] next = tables.clone();
+            for (MoodType m : MoodType.values()) {
+                if (mood == null || mood == m) {
+                    Table merged = merge(m, next[m.ordinal()], List.of(quote), List.of(weight));
+                    added |= merged != next[m.ordinal()];
+                    next[m.ordinal()] = merged;
+                }
+            }
+            if (added) {
+                tables = next;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Picks a quote for a mood at random, in proportion to the quote weights.
+     *
+     * @param mood the mood (cannot be null)
+     * @return a formatted quote, or null if the corpus has none for that mood
+     */
+    public String pick(MoodType mood) {
+        Table t = tables[mood.ordinal()];
+        int n = t.quotes.length;
+        if (n == 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int slot = random.nextInt(n);
+        return random.nextDouble() < t.probability[slot] ? t.quotes[slot] : t.quotes[t.alias[slot]];
+    }
+
+    /**
+     * Returns the number of quotes available for a mood.
+     *
+     * @param mood the mood (cannot be null)
+     * @return the number of quotes
+     */
+    public int size(MoodType mood) {
+        return tables[mood.ordinal()].quotes.length;
+    }
+
+    /**
+     * Returns a table with new quotes appended, skipping ones already known.
+     * Must be called while holding this object's lock.
+     *
+     * @param mood    the mood the table belongs to
+     * @param table   the current table
+     * @param quotes  raw quotes to add
+     * @param weights their weights
+     * @return the rebuilt table, or the same table if nothing was added
+     */
+    private Table merge(MoodType mood, Table table, List<String> quotes, List<Double> weights) {
+        HashSet<String> seen = known.get(mood.ordinal());
+        int n = table.quotes.length;
+        String[] q = Arrays.copyOf(table.quotes, n + quotes.size());
+        double[] w = Arrays.copyOf(table.weights, n + quotes.size());
+        for (int i = 0; i < quotes.size() && n < MAX_QUOTES_PER_MOOD; i++) {
+            if (seen.add(quotes.get(i))) {
+                q[n] = formatter.apply(mood, quotes.get(i));
+                w[n] = weights.get(i);
+                n++;
+            }
+        }
+        if (n == table.quotes.length) {
+            return table;
+        }
+        return build(Arrays.copyOf(q, n), Arrays.copyOf(w, n));
+    }
+
+    /**
+     * Builds an alias table using Vose's method.
+     *
+     * @param quotes  the formatted quotes
+     * @param weights their positive weights
+     * @return the table
+     */
+    private static Table build(String[] quotes, double[] weights) {
+        int n = quotes.length;
+        double total = 0;
+        for (double w : weights) {
+            total += w;
+        }
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = scaled[l] + scaled[s] - 1.0;
+            if (scaled[l] < 1.0) {
+                small[smallCount++] = l;
+            } else {
+                large[largeCount++] = l;
+            }
+        }
+        // Whatever remains is 1 up to rounding error
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1.0;
+        }
+        return new Table(quotes, weights, probability, alias);
+    }
+}
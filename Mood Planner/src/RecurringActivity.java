@@ -0,0 +1,352 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+
+/**
+ * Defines an activity that repeats on a fixed schedule, such as a weekly study session.
+ *
+ * <p>The definition is stored once. Individual occurrences are only created on
+ * request, for a given date window, as lightweight {@link Occurrence} activities
+ * that share the definition's title, description and effort level.</p>
+ *
+ * <p>Occurrences are completed in date order. The definition remembers the date of
+ * the last completed occurrence, and that occurrence and any earlier ones are no
+ * longer returned. Definitions are saved in activities files as one line starting
+ * with "R,"; see {@link #toLine()}.</p>
+ *
+ * @see ActivityManager#addRecurringActivity(RecurringActivity)
+ * @see ActivityManager#getActivitiesDueBetween(LocalDate, LocalDate)
+ */
+public class RecurringActivity {
+
+    /**
+     * How often the activity repeats, before applying the interval.
+     */
+    public enum Frequency {
+        /** Repeats every day (times the interval). */
+        DAILY(1),
+        /** Repeats every week (times the interval). */
+        WEEKLY(7);
+
+        /** Length of one period in days. */
+        private final int days;
+
+        /**
+         * Creates a frequency.
+         *
+         * @param days length of one period in days
+         */
+        Frequency(int days) {
+            this.days = days;
+        }
+    }
+
+    /** Unique identifier, shared by all occurrences. */
+    private int id;
+
+    /** Title of every occurrence. */
+    private final String title;
+
+    /** Description of every occurrence. */
+    private final String description;
+
+    /** Effort level of every occurrence. */
+    private final LevelMood effortLevel;
+
+    /** Course name for school activities, or null for personal ones. */
+    private final String courseName;
+
+    /** Date of the first occurrence. */
+    private final LocalDate start;
+
+    /** How often the activity repeats. */
+    private final Frequency frequency;
+
+    /** Number of periods between occurrences. */
+    private final int interval;
+
+    /** Last date an occurrence may fall on, or null to repeat forever. */
+    private final LocalDate until;
+
+    /** Date of the last completed occurrence, or null if none has been completed. */
+    private volatile LocalDate completedThrough;
+
+    /** First field of a saved definition line. */
+    private static final String LINE_PREFIX = "R,";
+
+    /**
+     * Creates a recurring activity definition.
+     *
+     * @param title       the title (cannot be null or empty)
+     * @param description the description (may be null)
+     * @param effortLevel the effort level (cannot be null)
+     * @param courseName  the course for school activities, or null for personal ones
+     * @param start       the date of the first occurrence (cannot be null)
+     * @param frequency   how often it repeats (cannot be null)
+     * @param interval    periods between occurrences, e.g. 2 for every other week (at least 1)
+     * @param until       the last possible date, or null to repeat forever
+     * @throws IllegalArgumentException if a required value is missing or invalid
+     */
+    public RecurringActivity(String title, String description, LevelMood effortLevel, String courseName,
+                             LocalDate start, Frequency frequency, int interval, LocalDate until) {
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Title cannot be empty.");
+        }
+        if (effortLevel == null || start == null || frequency == null) {
+            throw new IllegalArgumentException("Effort level, start date and frequency cannot be null");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1");
+        }
+        if (until != null && until.isBefore(start)) {
+            throw new IllegalArgumentException("End date cannot be before the start date");
+        }
+        this.title = StringPool.intern(title.trim());
+        this.description = description != null ? StringPool.intern(description) : "";
+        this.effortLevel = effortLevel;
+        this.courseName = StringPool.intern(courseName);
+        this.start = start;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.until = until;
+    }
+
+    /**
+     * Returns the unique identifier shared by all occurrences.
+     *
+     * @return the ID
+     */
+    public int getId() { return id; }
+    /**
+     * Sets the unique identifier shared by all occurrences.
+     *
+     * @param id the new ID
+     */
+    public void setId(int id) { this.id = id; }
+    /**
+     * Returns the title of every occurrence.
+     *
+     * @return the title
+     */
+    public String getTitle() { return title; }
+    /**
+     * Returns the description of every occurrence.
+     *
+     * @return the description
+     */
+    public String getDescription() { return description; }
+    /**
+     * Returns the effort level of every occurrence.
+     *
+     * @return the effort level
+     */
+    public LevelMood getEffortLevel() { return effortLevel; }
+    /**
+     * Returns the course name for school activities.
+     *
+     * @return the course name, or null for personal activities
+     */
+    public String getCourseName() { return courseName; }
+    /**
+     * Returns the type label of every occurrence.
+     *
+     * @return "School" if there is a course, otherwise "Personal"
+     */
+    public String getTypeLabel() { return courseName != null ? "School" : "Personal"; }
+    /**
+     * Returns the date of the first occurrence.
+     *
+     * @return the start date
+     */
+    public LocalDate getStart() { return start; }
+    /**
+     * Returns the date of the last completed occurrence.
+     *
+     * @return the date, or null if no occurrence has been completed
+     */
+    public LocalDate getCompletedThrough() { return completedThrough; }
+
+    /**
+     * Marks every occurrence up to and including a date as completed.
+     * Called by {@link ActivityManager#completeActivity(int)} while it holds its write lock.
+     *
+     * @param date the due date of the completed occurrence
+     */
+    void completeThrough(LocalDate date) {
+        if (completedThrough == null || date.isAfter(completedThrough)) {
+            completedThrough = date;
+        }
+    }
+
+    /**
+     * Returns the first open occurrence due on or after a date.
+     *
+     * @param from the earliest due date to consider (cannot be null)
+     * @return the occurrence, or null if the series ends before then
+     * @throws IllegalArgumentException if from is null
+     */
+    public Activity nextOccurrence(LocalDate from) {
+        if (from == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        LocalDate date = firstDateOnOrAfter(from);
+        return until == null || !date.isAfter(until) ? new Occurrence(this, date) : null;
+    }
+
+    /**
+     * Returns the open occurrences due in [from, to], oldest first.
+     * The first occurrence in the window is computed directly rather than by
+     * stepping through earlier ones.
+     *
+     * @param from first day of the window (inclusive, cannot be null)
+     * @param to   last day of the window (inclusive, cannot be null)
+     * @return a new list of occurrences
+     * @throws IllegalArgumentException if from or to is null
+     */
+    public ArrayList<Activity> occurrencesBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Window bounds cannot be null");
+        }
+        ArrayList<Activity> result = new ArrayList<>();
+        LocalDate last = until != null && until.isBefore(to) ? until : to;
+        long step = (long) frequency.days * interval;
+
+        for (LocalDate date = firstDateOnOrAfter(from); !date.isAfter(last); date = date.plusDays(step)) {
+            result.add(new Occurrence(this, date));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first scheduled date on or after a date that has not been completed,
+     * ignoring the end date.
+     *
+     * @param from the earliest date to consider
+     * @return the occurrence date
+     */
+    private LocalDate firstDateOnOrAfter(LocalDate from) {
+        LocalDate done = completedThrough;
+        if (done != null && !from.isAfter(done)) {
+            from = done.plusDays(1);
+        }
+        long step = (long) frequency.days * interval;
+        long offset = from.isAfter(start) ? ChronoUnit.DAYS.between(start, from) : 0;
+        long k = (offset + step - 1) / step;
+        return start.plusDays(k * step);
+    }
+
+    /**
+     * Returns this definition as one line of an activities file:
+     * R,id,title,description,effortLevel,type,start,frequency,interval,until,courseName,completedThrough.
+     * An empty until or completedThrough field means none. The title, description and
+     * course name are escaped with {@link CsvField#escape(String)}.
+     *
+     * @return the line, without a line ending
+     */
+    String toLine() {
+        return LINE_PREFIX + id + "," + CsvField.escape(title) + "," + CsvField.escape(description) + ","
+                + effortLevel + "," + getTypeLabel() + "," + start + "," + frequency + "," + interval + ","
+                + (until != null ? until : "") + "," + (courseName != null ? CsvField.escape(courseName) : "") + ","
+                + (completedThrough != null ? completedThrough : "");
+    }
+
+    /**
+     * Returns whether a line of an activities file holds a recurring definition.
+     *
+     * @param line the line
+     * @return true if the line was written by {@link #toLine()}
+     */
+    static boolean isLine(String line) {
+        return line.startsWith(LINE_PREFIX);
+    }
+
+    /**
+     * Parses a line written by {@link #toLine()}.
+     *
+     * @param line the line
+     * @return the definition, with its ID and completion date restored
+     * @throws IllegalArgumentException if the line is malformed or a field has an invalid value
+     * @throws java.time.format.DateTimeParseException if a date is invalid
+     */
+    static RecurringActivity fromLine(String line) {
+        String[] p = line.split(",", -1);
+        if (p.length != 12 || !isLine(line)) {
+            throw new IllegalArgumentException("Malformed recurring activity: " + line);
+        }
+        String course = p[5].equalsIgnoreCase("School") ? CsvField.unescape(p[10]) : null;
+        RecurringActivity r = new RecurringActivity(CsvField.unescape(p[2]), CsvField.unescape(p[3]),
+                LevelMood.valueOf(p[4]), course,
+                LocalDate.parse(p[6]), Frequency.valueOf(p[7]), Integer.parseInt(p[8]),
+                p[9].isEmpty() ? null : LocalDate.parse(p[9]));
+        r.id = Integer.parseInt(p[1]);
+        r.completedThrough = p[11].isEmpty() ? null : LocalDate.parse(p[11]);
+        return r;
+    }
+
+    /**
+     * Returns this schedule as an iCalendar RRULE value,
+     * for example "FREQ=WEEKLY;INTERVAL=1;UNTIL=20261231T235959".
+     * UNTIL is given as a local date-time to match the DTSTART written by
+     * {@link ActivityManager#exportActivityToGoogleCalendar(int)}.
+     *
+     * @return the recurrence rule
+     */
+    public String toRRule() {
+        String rule = "FREQ=" + frequency + ";INTERVAL=" + interval;
+        if (until != null) {
+            rule += ";UNTIL=" + until.toString().replace("-", "") + "T235959";
+        }
+        return rule;
+    }
+
+    /**
+     * Returns a string representation of this definition.
+     *
+     * @return a formatted string containing the ID, title, effort and schedule
+     */
+    @Override
+    public String toString() {
+        return String.format("RecurringActivity{id=%d, title='%s', effort=%s, start=%s, rule=%s}",
+                id, title, effortLevel, start, toRRule());
+    }
+
+    /**
+     * One occurrence of a recurring activity on a particular date. It shares the
+     * definition's ID and text and is created only when a date window is queried.
+     */
+    public static final class Occurrence extends Activity {
+
+        /** The definition this occurrence belongs to. */
+        private final RecurringActivity series;
+
+        /**
+         * Creates an occurrence.
+         *
+         * @param series the definition
+         * @param date   the due date of this occurrence
+         */
+        private Occurrence(RecurringActivity series, LocalDate date) {
+            super(series.id, series.title, series.description, series.effortLevel, date);
+            this.series = series;
+        }
+
+        /**
+         * Returns the recurring definition this occurrence belongs to.
+         *
+         * @return the definition
+         */
+        public RecurringActivity getSeries() {
+            return series;
+        }
+
+        @Override
+        public String getTypeLabel() {
+            return series.getTypeLabel();
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + " [Recurring " + series.toRRule() + "]";
+        }
+    }
+}
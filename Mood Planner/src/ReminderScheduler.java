@@ -0,0 +1,457 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires reminders before activities come due, using a hierarchical timing wheel.
+ *
+ * <p>Time is divided into ticks (one minute by default). The wheel has four levels
+ * of 64 slots: level 0 holds reminders due in the next 64 ticks, level 1 the next
+ * 64&times;64 ticks, and so on. Scheduling and cancelling a reminder are O(1) list
+ * operations, and each tick only looks at one slot, so the cost does not depend on
+ * how many activities are being tracked. Reminders in higher levels are moved down
+ * a level when their slot comes around.</p>
+ *
+ * <p>A reminder fires at {@code lead} before 09:00 on the due date (the same start
+ * time used by {@link ActivityManager#exportActivityToGoogleCalendar(int)}).
+ * A reminder whose time has already passed fires on the next tick, unless the
+ * activity is due today or earlier. Those are not scheduled, so reopening the planner
+ * does not repeat reminders for work already due, and activities loaded from files
+ * saved without due dates (which default to today) do not all fire at once.</p>
+ *
+ * <p>All reminders that come due in one tick are delivered to the sink as one batch.</p>
+ *
+ * <p>An occurrence of a recurring activity is scheduled like any other activity,
+ * under the ID of its definition. When its reminder fires, the definition's
+ * following occurrence is scheduled in its place.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see ReminderSink
+ * @see #attach(ActivityManager)
+ */
+public class ReminderScheduler implements AutoCloseable {
+
+    /** Bits of tick number covered by one level. */
+    private static final int LEVEL_BITS = 6;
+
+    /** Slots per level. */
+    private static final int SLOTS = 1 << LEVEL_BITS;
+
+    /** Number of levels. */
+    private static final int LEVELS = 4;
+
+    /** Furthest a reminder can be placed ahead, in ticks; later ones are re-placed on cascade. */
+    private static final long MAX_SPAN = 1L << (LEVEL_BITS * LEVELS);
+
+    /** Time of day reminders are measured back from. */
+    private static final LocalTime DUE_TIME = LocalTime.of(9, 0);
+
+    /**
+     * A scheduled reminder, linked into one wheel slot.
+     */
+    private static final class Timer {
+
+        /** The activity to remind about, or null for a slot's list head. */
+        final Activity activity;
+
+        /** Tick at which the reminder fires. */
+        final long deadline;
+
+        /** Previous timer in the slot. */
+        Timer prev = this;
+
+        /** Next timer in the slot. */
+        Timer next = this;
+
+        /**
+         * Creates a timer.
+         *
+         * @param activity the activity, or null for a list head
+         * @param deadline the firing tick
+         */
+        Timer(Activity activity, long deadline) {
+            this.activity = activity;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Removes this timer from its slot.
+         */
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+
+    /** Where reminders are delivered. */
+    private final ReminderSink sink;
+
+    /** How long before the due time to remind. */
+    private final Duration lead;
+
+    /** Length of one tick in milliseconds. */
+    private final long tickMillis;
+
+    /** Source of the current time. */
+    private final Clock clock;
+
+    /** List heads for every slot, indexed by [level][slot]. */
+    private final Timer[][] wheel = new Timer[LEVELS][SLOTS];
+
+    /** Scheduled timers by activity ID. */
+    private final HashMap<Integer, Timer> timers = new HashMap<>();
+
+    /** The last tick that has been processed. */
+    private long currentTick;
+
+    /** Thread that advances the wheel, or null if not started. */
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Creates a scheduler with one-minute ticks using the system clock.
+     *
+     * @param sink where reminders are delivered (cannot be null)
+     * @param lead how long before the due time to remind (cannot be null or negative)
+     * @throws IllegalArgumentException if an argument is null or lead is negative
+     */
+    public ReminderScheduler(ReminderSink sink, Duration lead) {
+        this(sink, lead, Duration.ofMinutes(1), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param sink  where reminders are delivered (cannot be null)
+     * @param lead  how long before the due time to remind (cannot be null or negative)
+     * @param tick  the wheel's resolution (cannot be null, at least one millisecond)
+     * @param clock source of the current time (cannot be null)
+     * @throws IllegalArgumentException if an argument is null or out of range
+     */
+    public ReminderScheduler(ReminderSink sink, Duration lead, Duration tick, Clock clock) {
+        if (sink == null || lead == null || tick == null || clock == null) {
+            throw new IllegalArgumentException("Arguments cannot be null");
+        }
+        if (lead.isNegative() || tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Lead cannot be negative and tick must be at least 1 ms");
+        }
+        this.sink = sink;
+        this.lead = lead;
+        this.tickMillis = tick.toMillis();
+        this.clock = clock;
+        this.currentTick = clock.millis() / tickMillis;
+        for (Timer[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Timer(null, 0);
+            }
+        }
+    }
+
+    /**
+     * Schedules (or reschedules) the reminder for an activity.
+     * Activities due today or earlier whose reminder time has already passed are not scheduled.
+     * Only the ID and due date are read, so a lazily loaded activity is not parsed.
+     *
+     * @param activity the activity to remind about (cannot be null)
+     * @return true if a reminder was scheduled
+     * @throws IllegalArgumentException if activity is null
+     */
+    public synchronized boolean schedule(Activity activity) {
+        if (activity == null) {
+            throw new IllegalArgumentException("Activity cannot be null");
+        }
+        cancel(activity.getId());
+
+        LocalDate due = activity.getDueDate();
+        long dueMillis = due.atTime(DUE_TIME).atZone(clock.getZone()).toInstant().toEpochMilli();
+        long deadline = (dueMillis - lead.toMillis()) / tickMillis;
+        if (deadline <= currentTick && !due.isAfter(LocalDate.now(clock))) {
+            return false;
+        }
+
+        Timer timer = new Timer(activity, Math.max(deadline, currentTick + 1));
+        timers.put(activity.getId(), timer);
+        place(timer);
+        return true;
+    }
+
+    /**
+     * Cancels the reminder for an activity.
+     *
+     * @param activityId the activity's ID
+     * @return true if a reminder was cancelled
+     */
+    public synchronized boolean cancel(int activityId) {
+        Timer timer = timers.remove(activityId);
+        if (timer == null) {
+            return false;
+        }
+        timer.unlink();
+        return true;
+    }
+
+    /**
+     * Returns the number of scheduled reminders.
+     *
+     * @return the reminder count
+     */
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Keeps reminders in step with an activity manager: every open activity and the
+     * next occurrence of every recurring activity are scheduled now, added and updated
+     * activities are (re)scheduled, and completed or removed ones are cancelled. Close
+     * the returned subscription to stop following changes.
+     *
+     * <p>The initial schedule is built from a snapshot. Events that arrive before it
+     * is built are held back until afterwards, and events for versions the snapshot
+     * already contains are skipped, so a change is never undone by the snapshot.
+     * Recurring definitions are not versioned, so their events are always applied,
+     * in order.</p>
+     *
+     * <p>The subscription never makes the manager wait. If events are dropped because
+     * the buffer filled up, the whole schedule is rebuilt from a fresh snapshot, and
+     * only the events newer than that snapshot are applied.</p>
+     *
+     * @param manager the manager to follow (cannot be null)
+     * @return the change-stream subscription
+     * @throws IllegalArgumentException if manager is null
+     */
+    public ChangeStream<ActivityEvent>.Subscription attach(ActivityManager manager) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager cannot be null");
+        }
+        // Subscribe first so nothing added during the initial pass is missed
+        AtomicReference<ChangeStream<ActivityEvent>.Subscription> self = new AtomicReference<>();
+        long[] droppedSeen = {0};
+        // Version the schedule was last rebuilt from, or -1 before the initial pass (guarded by this)
+        long[] synced = {-1};
+        ArrayList<ActivityEvent> early = new ArrayList<>();
+        ChangeStream<ActivityEvent>.Subscription subscription = manager.getChangeStream().subscribe(
+                events -> {
+                    ChangeStream<ActivityEvent>.Subscription s = self.get();
+                    long dropped = s != null ? s.getDroppedCount() : 0;
+                    synchronized (this) {
+                        if (synced[0] < 0) {
+                            early.addAll(events);
+                            return;
+                        }
+                        if (dropped != droppedSeen[0]) {
+                            droppedSeen[0] = dropped;
+                            synced[0] = resync(manager);
+                        }
+                        apply(events, synced[0]);
+                    }
+                }, 8192, ChangeStream.OverflowPolicy.DROP_OLDEST, 256);
+        self.set(subscription);
+        synchronized (this) {
+            synced[0] = resync(manager);
+            apply(early, synced[0]);
+            early.clear();
+        }
+        return subscription;
+    }
+
+    /**
+     * Replaces every scheduled reminder with ones for the manager's open activities
+     * and the next occurrence of each of its recurring activities.
+     *
+     * @param manager the manager to copy the schedule from
+     * @return the version of the snapshot the schedule was built from
+     */
+    private synchronized long resync(ActivityManager manager) {
+        for (Timer timer : timers.values()) {
+            timer.unlink();
+        }
+        timers.clear();
+        ActivityManager.Snapshot snapshot = manager.snapshot();
+        for (Activity a : snapshot) {
+            scheduleSafely(a);
+        }
+        LocalDate today = LocalDate.now(clock);
+        for (RecurringActivity r : manager.getRecurringActivities()) {
+            Activity next = r.nextOccurrence(today);
+            if (next != null) {
+                scheduleSafely(next);
+            }
+        }
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Starts a background thread that advances the wheel once per tick.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reminder-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(() -> advanceTo(clock.millis()),
+                tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread. Scheduled reminders are kept.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Advances the wheel up to the given time, delivering every reminder that has come
+     * due to the sink as one batch.
+     * Normally called by the background thread once per tick; can also be called directly.
+     *
+     * @param epochMillis the current time in epoch milliseconds
+     */
+    public void advanceTo(long epochMillis) {
+        long target = epochMillis / tickMillis;
+        ArrayList<Activity> due = new ArrayList<>();
+        synchronized (this) {
+            while (currentTick < target) {
+                tick(due);
+            }
+        }
+        if (!due.isEmpty()) {
+            try {
+                sink.remindAll(due);
+            } catch (RuntimeException e) {
+                // A failing sink must not stop the ticker
+            }
+        }
+    }
+
+    /**
+     * Applies a batch of activity changes to the schedule. Events for versions the
+     * schedule was already built from are skipped, except those for recurring
+     * occurrences, which do not create versions. A change that fails is reported
+     * and does not stop the rest of the batch. Must be called while holding the lock.
+     *
+     * @param events        the changes
+     * @param syncedVersion the version the schedule was last rebuilt from
+     */
+    private void apply(List<ActivityEvent> events, long syncedVersion) {
+        for (ActivityEvent e : events) {
+            Activity a = e.getActivity();
+            if (e.getVersion() <= syncedVersion && !(a instanceof RecurringActivity.Occurrence)) {
+                continue;
+            }
+            if (e.getKind() == ActivityEvent.Kind.COMPLETED || e.getKind() == ActivityEvent.Kind.REMOVED) {
+                cancel(a.getId());
+            } else {
+                scheduleSafely(a);
+            }
+        }
+    }
+
+    /**
+     * Schedules an activity, reporting a failure instead of throwing it.
+     * Must be called while holding the lock.
+     *
+     * @param activity the activity to remind about
+     */
+    private void scheduleSafely(Activity activity) {
+        try {
+            schedule(activity);
+        } catch (RuntimeException e) {
+            System.err.println("Warning: could not schedule a reminder for activity "
+                    + activity.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves to the next tick: cascades higher levels whose slot has come around,
+     * then collects the reminders in the current level-0 slot. Each recurring
+     * occurrence that fires is replaced by the following occurrence of its series.
+     * Must be called while holding the lock.
+     *
+     * @param due receives the activities whose reminders fire
+     */
+    private void tick(List<Activity> due) {
+        currentTick++;
+        int firstDue = due.size();
+
+        for (int level = LEVELS - 1; level > 0; level--) {
+            long mask = (1L << (LEVEL_BITS * level)) - 1;
+            if ((currentTick & mask) == 0) {
+                Timer head = wheel[level][slot(currentTick, level)];
+                while (head.next != head) {
+                    Timer t = head.next;
+                    t.unlink();
+                    place(t);
+                }
+            }
+        }
+
+        Timer head = wheel[0][slot(currentTick, 0)];
+        Timer t = head.next;
+        while (t != head) {
+            Timer next = t.next;
+            if (t.deadline <= currentTick) {
+                t.unlink();
+                timers.remove(t.activity.getId());
+                due.add(t.activity);
+            }
+            t = next;
+        }
+
+        for (Activity a : due.subList(firstDue, due.size())) {
+            if (a instanceof RecurringActivity.Occurrence occurrence) {
+                Activity following = occurrence.getSeries().nextOccurrence(occurrence.getDueDate().plusDays(1));
+                if (following != null) {
+                    scheduleSafely(following);
+                }
+            }
+        }
+    }
+
+    /**
+     * Links a timer into the slot for its deadline. Must be called while holding the lock.
+     *
+     * @param timer the timer to place
+     */
+    private void place(Timer timer) {
+        long delta = Math.min(Math.max(timer.deadline - currentTick, 0), MAX_SPAN - 1);
+        long tick = currentTick + delta;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (LEVEL_BITS * (level + 1))) {
+            level++;
+        }
+        Timer head = wheel[level][slot(tick, level)];
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    /**
+     * Returns the slot a tick falls into at a given level.
+     *
+     * @param tick  the tick
+     * @param level the wheel level
+     * @return the slot index
+     */
+    private static int slot(long tick, int level) {
+        return (int) ((tick >>> (LEVEL_BITS * level)) & (SLOTS - 1));
+    }
+}
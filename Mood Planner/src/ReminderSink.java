@@ -0,0 +1,40 @@
+import java.util.List;
+
+/**
+ * Receives deadline reminders from a {@link ReminderScheduler}.
+ * Implementations might show a dialog, write to a log or send a notification.
+ *
+ * <p>Reminders are delivered on the scheduler's thread, so implementations
+ * should return quickly and hand Swing work to the event thread. Reminders that
+ * come due together are passed to {@link #remindAll(List)} as one batch, so a
+ * sink that shows dialogs can show one per batch instead of one per activity.</p>
+ *
+ * @see ReminderScheduler
+ */
+@FunctionalInterface
+public interface ReminderSink {
+
+    /**
+     * Delivers a reminder that an activity is coming due.
+     *
+     * @param activity the activity the reminder is for
+     */
+    void remind(Activity activity);
+
+    /**
+     * Delivers the reminders that came due together, oldest deadline first.
+     * By default each one is passed to {@link #remind(Activity)}; a failure for one
+     * activity does not stop the others.
+     *
+     * @param activities the activities the reminders are for (never empty)
+     */
+    default void remindAll(List<Activity> activities) {
+        for (Activity a : activities) {
+            try {
+                remind(a);
+            } catch (RuntimeException e) {
+                // A failing reminder must not stop the others
+            }
+        }
+    }
+}
@@ -32,7 +32,16 @@ public class SchoolActivity extends Activity {
     public SchoolActivity(int id, String title, String description,
                           LevelMood effortLevel, LocalDate dueDate, String courseName) {
         super(id, title, description, effortLevel, dueDate);
-        this.courseName = courseName;
+        this.courseName = StringPool.intern(courseName);
+    }
+
+    /**
+     * Returns the name of the course associated with this activity.
+     *
+     * @return the course name
+     */
+    public String getCourseName() {
+        return courseName;
     }
 
     /**
@@ -0,0 +1,90 @@
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Shared dictionary that deduplicates the strings stored in activities.
+ * Titles, descriptions and course names repeat heavily ("Homework", course codes,
+ * templated descriptions), so equal strings are mapped to one shared instance.
+ *
+ * <p>Entries are weak: once no activity refers to a string any more, the garbage
+ * collector can remove it from the pool. Unlike {@link String#intern()}, the pool
+ * never keeps strings alive on its own.</p>
+ *
+ * <p>The pool is split into independently locked stripes chosen by hash code, so
+ * threads constructing activities in parallel (block-parallel loads, many users
+ * loading at once) rarely wait for each other.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see Activity
+ * @see SchoolActivity
+ */
+public final class StringPool {
+
+    /** Number of stripes; a power of two so a mask selects the stripe. */
+    private static final int STRIPES = 64;
+
+    /** Each stripe maps its pooled strings to weak references to their canonical instances. */
+    private static final List<WeakHashMap<String, WeakReference<String>>> POOL = new ArrayList<>(STRIPES);
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            POOL.add(new WeakHashMap<>());
+        }
+    }
+
+    /** This class only has static methods. */
+    private StringPool() {
+    }
+
+    /**
+     * Returns the shared instance of a string, adding it to the pool if needed.
+     *
+     * @param value the string to deduplicate (may be null)
+     * @return the canonical instance equal to {@code value}, or null if value is null
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return value;
+        }
+
+        WeakHashMap<String, WeakReference<String>> stripe = stripeFor(value);
+        synchronized (stripe) {
+            WeakReference<String> ref = stripe.get(value);
+            String existing = ref != null ? ref.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            stripe.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * Returns the number of distinct strings currently in the pool.
+     *
+     * @return the pool size
+     */
+    public static int size() {
+        int size = 0;
+        for (WeakHashMap<String, WeakReference<String>> stripe : POOL) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the stripe responsible for a string.
+     *
+     * @param value the string
+     * @return its stripe
+     */
+    private static WeakHashMap<String, WeakReference<String>> stripeFor(String value) {
+        int h = value.hashCode();
+        return POOL.get((h ^ (h >>> 16)) & (STRIPES - 1));
+    }
+}
@@ -0,0 +1,133 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.function.UnaryOperator;
+
+/**
+ * Measures how much heap {@link StringPool} saves when many activities share
+ * the same titles, descriptions and course names.
+ *
+ * <p>The benchmark builds the same table of activity text twice (title, description
+ * and course per activity), each string a fresh copy as a file parser would
+ * produce. The pool to use is passed in: once a pass-through that keeps every copy
+ * and once {@link StringPool#intern(String)}, so the two tables differ only in
+ * deduplication. It prints the retained heap of each, then times building real
+ * {@link SchoolActivity} objects on several threads at once to show the pool does
+ * not serialize parallel loads.</p>
+ *
+ * <p>Run with: {@code java StringPoolBenchmark [activityCount] [threads]}</p>
+ */
+public class StringPoolBenchmark {
+
+    /** Repeated titles used to build the backlog. */
+    private static final String[] TITLES = {"Homework", "Read chapter", "Study session", "Lab report"};
+
+    /** Repeated course names used to build the backlog. */
+    private static final String[] COURSES = {"CIS111B", "MAT201", "ENG102"};
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional number of activities to create (default 500000)
+     *             and number of threads for the timing run (default: available processors)
+     * @throws InterruptedException if interrupted while waiting for the timing threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        long base = usedHeap();
+        String[][] unpooled = buildText(count, UnaryOperator.identity());
+        long unpooledBytes = usedHeap() - base;
+        System.out.println("Activity text without pooling: " + unpooledBytes / 1024 + " KB (" + unpooled.length
+                + " activities)");
+        unpooled = null;
+
+        base = usedHeap();
+        String[][] pooled = buildText(count, StringPool::intern);
+        long pooledBytes = usedHeap() - base;
+        System.out.println("Activity text with pooling:    " + pooledBytes / 1024 + " KB (" + pooled.length
+                + " activities, " + StringPool.size() + " pooled strings)");
+        System.out.printf("Pooled text uses %.1f%% of the unpooled heap%n",
+                100.0 * pooledBytes / Math.max(1, unpooledBytes));
+        pooled = null;
+
+        for (int round = 0; round < 3; round++) {
+            Thread[] workers = new Thread[threads];
+            int perThread = count / threads;
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                workers[t] = new Thread(() -> build(offset, perThread));
+                workers[t].start();
+            }
+            for (Thread w : workers) {
+                w.join();
+            }
+            System.out.printf("Built %d pooled activities on %d threads in %.1f ms%n",
+                    perThread * threads, threads, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Builds the text of each activity from freshly copied strings, as loading a
+     * file would, passing every string through the given pool.
+     *
+     * @param count number of activities
+     * @param pool  returns the instance to keep for each string
+     * @return one {title, description, course} row per activity
+     */
+    private static String[][] buildText(int count, UnaryOperator<String> pool) {
+        String[][] rows = new String[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new String[] {
+                    pool.apply(copy(TITLES[i % TITLES.length])),
+                    pool.apply(copy("Complete the assigned work for " + COURSES[i % COURSES.length])),
+                    pool.apply(copy(COURSES[i % COURSES.length]))
+            };
+        }
+        return rows;
+    }
+
+    /**
+     * Builds activities from freshly copied strings, as loading a file would.
+     *
+     * @param offset index of the first activity, used to vary the content
+     * @param count  number of activities to build
+     * @return the activities
+     */
+    private static ArrayList<Activity> build(int offset, int count) {
+        ArrayList<Activity> list = new ArrayList<>(count);
+        LocalDate today = LocalDate.now();
+        for (int i = offset; i < offset + count; i++) {
+            list.add(new SchoolActivity(i,
+                    copy(TITLES[i % TITLES.length]),
+                    copy("Complete the assigned work for " + COURSES[i % COURSES.length]),
+                    LevelMood.MEDIUM, today,
+                    copy(COURSES[i % COURSES.length])));
+        }
+        return list;
+    }
+
+    /**
+     * Returns a new String instance equal to the given one, like a file parser would.
+     *
+     * @param s the string to copy
+     * @return a distinct copy of s
+     */
+    private static String copy(String s) {
+        return new String(s.toCharArray());
+    }
+
+    /**
+     * Returns the heap currently in use after encouraging a garbage collection.
+     *
+     * @return used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+
+/**
+ * The activities and mood history of one user, as managed by {@link PlannerRegistry}.
+ *
+ * <p>A planner's data lives in a per-user directory: open activities in
+ * "activities.txt", completed ones in "completed_activities.txt", the mood
+ * history in "moods.bin" and the learned mood-to-effort model in
+ * "effort_model.txt". Moods are written through as they are logged; open
+ * activities and the model are written when the planner is evicted or flushed.
+ * Open activities are reloaded lazily, so bringing a spilled planner back only
+ * indexes its file and parses each activity when it is first used.</p>
+ *
+ * <p>Use {@link #logMood(MoodType)}, {@link #completeActivity(int)} and
+ * {@link #suggestActivities(MoodType)} rather than the managers directly so the
+ * user's {@link MoodEffortModel} keeps learning.</p>
+ *
+ * @see PlannerRegistry
+ */
+public class UserPlanner {
+
+    /** The user this planner belongs to. */
+    private final String userId;
+
+    /** File that open activities are spilled to. */
+    private final Path activitiesFile;
+
+    /** The user's activities. */
+    private final ActivityManager activityManager;
+
+    /** The user's persistent mood history. */
+    private final MappedMoodLog moodHistory;
+
+    /** The user's moods. */
+    private final MoodManager moodManager;
+
+    /** File the learned model is saved to. */
+    private final Path modelFile;
+
+    /** What the user actually completes in each mood. */
+    private final MoodEffortModel effortModel = new MoodEffortModel();
+
+    /**
+     * Opens the planner stored in the given directory, creating it if needed.
+     *
+     * @param userId    the user's ID
+     * @param directory the user's data directory
+     * @throws IOException if the directory or mood history cannot be opened
+     */
+    UserPlanner(String userId, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.userId = userId;
+        this.activitiesFile = directory.resolve("activities.txt");
+        this.activityManager = new ActivityManager(
+                new ActivityArchive(directory.resolve("completed_activities.txt").toString()));
+        this.moodHistory = new MappedMoodLog(directory.resolve("moods.bin").toString());
+        this.moodManager = new MoodManager(moodHistory);
+        this.modelFile = directory.resolve("effort_model.txt");
+
+        if (Files.exists(modelFile)) {
+            effortModel.loadFromFile(modelFile.toString());
+        }
+        if (moodHistory.size() > 0) {
+            // Completions after a reload are still credited to the last logged mood
+            effortModel.recordMood(moodHistory.get(moodHistory.size() - 1));
+        }
+
+        if (Files.exists(activitiesFile)
+                && !activityManager.loadActivitiesLazily(activitiesFile.toString())) {
+            moodHistory.close();
+            throw new IOException("Could not load " + activitiesFile);
+        }
+    }
+
+    /**
+     * Returns the ID of the user this planner belongs to.
+     *
+     * @return the user ID
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the user's activity manager.
+     *
+     * @return the activity manager
+     */
+    public ActivityManager getActivityManager() {
+        return activityManager;
+    }
+
+    /**
+     * Returns the user's mood manager.
+     *
+     * @return the mood manager
+     */
+    public MoodManager getMoodManager() {
+        return moodManager;
+    }
+
+    /**
+     * Returns the user's learned mood-to-effort model.
+     *
+     * @return the effort model
+     */
+    public MoodEffortModel getEffortModel() {
+        return effortModel;
+    }
+
+    /**
+     * Logs a mood for the user and feeds it to the effort model.
+     *
+     * @param mood the mood to log (cannot be null)
+     * @return the new mood log entry
+     * @throws IllegalArgumentException if mood is null
+     */
+    public MoodLog logMood(MoodType mood) {
+        MoodLog log = moodManager.logMood(mood);
+        effortModel.recordMood(log);
+        return log;
+    }
+
+    /**
+     * Completes one of the user's activities and credits it to the current mood.
+     *
+     * @param activityId the ID of the activity to complete
+     * @return true if the activity was completed
+     */
+    public boolean completeActivity(int activityId) {
+        Activity activity = activityManager.getActivity(activityId);
+        RecurringActivity series = activity == null ? activityManager.getRecurringActivity(activityId) : null;
+        if ((activity == null && series == null) || !activityManager.completeActivity(activityId)) {
+            return false;
+        }
+        LevelMood effort = activity != null ? activity.getEffortLevel() : series.getEffortLevel();
+        effortModel.recordCompletion(effort, Instant.now());
+        return true;
+    }
+
+    /**
+     * Suggests activities for a mood using the user's learned model.
+     *
+     * @param mood the user's current mood (cannot be null)
+     * @return the suggested activities
+     * @throws IllegalArgumentException if mood is null
+     */
+    public ArrayList<Activity> suggestActivities(MoodType mood) {
+        return activityManager.suggestActivitiesByMood(mood, effortModel);
+    }
+
+    /**
+     * Writes the user's open activities and mood history to disk.
+     *
+     * @throws IOException if the activities cannot be saved
+     */
+    void flush() throws IOException {
+        if (!activityManager.saveActivitiesToFile(activitiesFile.toString())) {
+            throw new IOException("Could not save " + activitiesFile);
+        }
+        if (!effortModel.saveToFile(modelFile.toString())) {
+            throw new IOException("Could not save " + modelFile);
+        }
+        moodHistory.force();
+    }
+
+    /**
+     * Flushes the planner and releases its mood history file.
+     *
+     * @throws IOException if the data cannot be written
+     */
+    void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            moodHistory.close();
+        }
+    }
+}